@@ -0,0 +1,142 @@
+package com.example.file.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration for background job execution
+ */
+@Configuration
+@EnableScheduling
+public class ExecutorConfig {
+
+    @Value("${file.jobs.pool-size:2}")
+    private int jobPoolSize;
+
+    @Value("${file.jobs.queue-capacity:100}")
+    private int jobQueueCapacity;
+
+    @Value("${file.zip.prefetch-pool-size:8}")
+    private int zipPrefetchPoolSize;
+
+    @Value("${storage.listing.prefetch-pool-size:4}")
+    private int listingPrefetchPoolSize;
+
+    @Value("${storage.multipart.pool-size:16}")
+    private int multipartPoolSize;
+
+    @Value("${file.bulk-upload.parallelism:8}")
+    private int bulkUploadParallelism;
+
+    @Value("${file.thumbnail.pool-size:0}")
+    private int thumbnailPoolSize;
+
+    @Value("${file.thumbnail.queue-capacity:1000}")
+    private int thumbnailQueueCapacity;
+
+    /**
+     * Create the executor for long-running file jobs
+     *
+     * @return the job executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor fileJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(jobPoolSize);
+        executor.setMaxPoolSize(jobPoolSize);
+        executor.setQueueCapacity(jobQueueCapacity);
+        executor.setThreadNamePrefix("file-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Create the executor that opens storage objects ahead of the ZIP writer
+     *
+     * @return the prefetch executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor zipPrefetchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(zipPrefetchPoolSize);
+        executor.setMaxPoolSize(zipPrefetchPoolSize);
+        executor.setQueueCapacity(Integer.MAX_VALUE);
+        executor.setThreadNamePrefix("zip-prefetch-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Create the executor that fetches the next page of an object listing ahead of its consumer
+     *
+     * @return the listing executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor storageListingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(listingPrefetchPoolSize);
+        executor.setMaxPoolSize(listingPrefetchPoolSize);
+        executor.setQueueCapacity(Integer.MAX_VALUE);
+        executor.setThreadNamePrefix("storage-listing-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Create the executor uploading the parts of large objects. Callers bound how many of
+     * their parts are queued, so the queue never holds more than the in-flight buffers.
+     *
+     * @return the multipart upload executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor multipartUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(multipartPoolSize);
+        executor.setMaxPoolSize(multipartPoolSize);
+        executor.setQueueCapacity(Integer.MAX_VALUE);
+        executor.setThreadNamePrefix("multipart-upload-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Create the executor storing the files of bulk uploads. Its size bounds how many
+     * files are sent to storage at once across all requests.
+     *
+     * @return the bulk upload executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor bulkUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(bulkUploadParallelism);
+        executor.setMaxPoolSize(bulkUploadParallelism);
+        executor.setQueueCapacity(Integer.MAX_VALUE);
+        executor.setThreadNamePrefix("bulk-upload-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Create the executor for thumbnail generation. Image decoding is CPU bound,
+     * so the pool defaults to one thread per core.
+     *
+     * @return the thumbnail executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor thumbnailExecutor() {
+        int poolSize = thumbnailPoolSize > 0 ? thumbnailPoolSize : Runtime.getRuntime().availableProcessors();
+        
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(thumbnailQueueCapacity);
+        executor.setThreadNamePrefix("thumbnail-");
+        executor.initialize();
+        return executor;
+    }
+}
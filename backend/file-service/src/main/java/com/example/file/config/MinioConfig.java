@@ -1,15 +1,19 @@
 package com.example.file.config;
 
+import com.example.file.storage.MultipartMinioClient;
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
- * Configuration for MinIO client
+ * Configuration for MinIO client, used when storage.type is minio
  */
 @Configuration
+@ConditionalOnProperty(name = "storage.type", havingValue = "minio", matchIfMissing = true)
 @RequiredArgsConstructor
 public class MinioConfig {
 
@@ -34,4 +38,17 @@ public class MinioConfig {
                 .credentials(accessKey, secretKey)
                 .build();
     }
+
+    /**
+     * Create the MinIO client used for parallel multipart uploads
+     *
+     * @return multipart MinIO client
+     */
+    @Bean
+    public MultipartMinioClient multipartMinioClient() {
+        return new MultipartMinioClient(MinioAsyncClient.builder()
+                .endpoint(endpoint)
+                .credentials(accessKey, secretKey)
+                .build());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.example.file.controller;
+
+import java.util.Arrays;
+
+/**
+ * Checks the admin role forwarded by the gateway.
+ *
+ * file-service has no security filter chain of its own; the gateway's JwtAuthenticationFilter
+ * validates the token and forwards its comma-separated authorities in the X-Authorities header.
+ */
+final class AdminAccess {
+
+    static final String AUTHORITIES_HEADER = "X-Authorities";
+
+    private static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+
+    private AdminAccess() {
+    }
+
+    /**
+     * Check whether the forwarded authorities include the admin role
+     *
+     * @param authorities the X-Authorities header value (optional)
+     * @return true if the caller is an admin
+     */
+    static boolean isAdmin(String authorities) {
+        return authorities != null && Arrays.stream(authorities.split(","))
+                .map(String::trim)
+                .anyMatch(ADMIN_AUTHORITY::equals);
+    }
+}
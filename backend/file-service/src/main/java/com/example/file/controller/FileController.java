@@ -2,13 +2,25 @@ package com.example.file.controller;
 
 import com.example.common.dto.ApiResponse;
 import com.example.common.dto.PageDto;
+import com.example.file.dto.BulkUploadResultDto;
+import com.example.file.dto.CompleteUploadRequest;
 import com.example.file.dto.FileInfoDto;
+import com.example.file.dto.FileJobDto;
 import com.example.file.dto.FilePermissionDto;
+import com.example.file.dto.FileSearchResultDto;
+import com.example.file.dto.FolderStatsDto;
+import com.example.file.dto.PresignedUploadRequest;
+import com.example.file.dto.PresignedUrlDto;
+import com.example.file.dto.QuotaDto;
 import com.example.file.dto.ShareFileRequest;
+import com.example.file.dto.ZipDownloadRequest;
 import com.example.file.entity.FilePermission;
 import com.example.file.entity.FilePermission.PermissionType;
 import com.example.file.mapper.FilePermissionMapper;
+import com.example.file.service.FileSearchService;
 import com.example.file.service.FileService;
+import com.example.file.service.ThumbnailService;
+import com.example.file.service.ZipDownloadService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -16,16 +28,24 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
 
@@ -40,8 +60,13 @@ import java.util.UUID;
 public class FileController {
 
     private final FileService fileService;
+    private final FileSearchService fileSearchService;
+    private final ZipDownloadService zipDownloadService;
     private final FilePermissionMapper filePermissionMapper;
 
+    @Value("${file.thumbnail.cache-days:30}")
+    private long thumbnailCacheDays;
+
     /**
      * Upload file
      *
@@ -49,6 +74,7 @@ public class FileController {
      * @param parentFolderId the parent folder ID (optional)
      * @param isPublic whether the file is public (optional)
      * @param groupId the group ID (optional)
+     * @param currentUserId the ID of the calling user
      * @return the uploaded file info
      */
     @PostMapping("/files/upload")
@@ -57,15 +83,70 @@ public class FileController {
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "parentFolderId", required = false) UUID parentFolderId,
             @RequestParam(value = "isPublic", defaultValue = "false") boolean isPublic,
-            @RequestParam(value = "groupId", required = false) UUID groupId) {
-        
-        // Get current user ID from security context
-        UUID currentUserId = UUID.randomUUID(); // TODO: Get from security context
+            @RequestParam(value = "groupId", required = false) UUID groupId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
         
         FileInfoDto fileInfoDto = fileService.uploadFile(file, parentFolderId, currentUserId, groupId, isPublic);
         return ResponseEntity.ok(ApiResponse.success(fileInfoDto));
     }
     
+    /**
+     * Upload many files in one request
+     *
+     * @param files the files to upload
+     * @param parentFolderId the parent folder ID (optional)
+     * @param isPublic whether the files are public (optional)
+     * @param groupId the group ID (optional)
+     * @param currentUserId the ID of the calling user
+     * @return the outcome for each file
+     */
+    @PostMapping("/files/upload/bulk")
+    @Operation(summary = "Bulk upload files", description = "Upload many files at once and get a result for each")
+    public ResponseEntity<ApiResponse<List<BulkUploadResultDto>>> uploadFiles(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "parentFolderId", required = false) UUID parentFolderId,
+            @RequestParam(value = "isPublic", defaultValue = "false") boolean isPublic,
+            @RequestParam(value = "groupId", required = false) UUID groupId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        List<BulkUploadResultDto> results = fileService.uploadFiles(files, currentUserId, parentFolderId, isPublic, groupId);
+        return ResponseEntity.ok(ApiResponse.success(results));
+    }
+    
+    /**
+     * Start a direct-to-storage upload
+     *
+     * @param request the upload request
+     * @param currentUserId the ID of the calling user
+     * @return the presigned upload URL
+     */
+    @PostMapping("/files/upload/presigned")
+    @Operation(summary = "Start presigned upload", description = "Get a short-lived URL to upload a file directly to storage")
+    public ResponseEntity<ApiResponse<PresignedUrlDto>> createPresignedUpload(
+            @Valid @RequestBody PresignedUploadRequest request,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        PresignedUrlDto presignedUrl = fileService.createPresignedUpload(request, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(presignedUrl));
+    }
+    
+    /**
+     * Complete a direct-to-storage upload
+     *
+     * @param request the completion request
+     * @param currentUserId the ID of the calling user
+     * @return the uploaded file info
+     */
+    @PostMapping("/files/upload/complete")
+    @Operation(summary = "Complete presigned upload", description = "Register a file uploaded through a presigned URL")
+    public ResponseEntity<ApiResponse<FileInfoDto>> completePresignedUpload(
+            @Valid @RequestBody CompleteUploadRequest request,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        FileInfoDto fileInfoDto = fileService.completePresignedUpload(request, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(fileInfoDto));
+    }
+    
     /**
      * Create folder
      *
@@ -73,6 +154,7 @@ public class FileController {
      * @param parentFolderId the parent folder ID (optional)
      * @param isPublic whether the folder is public (optional)
      * @param groupId the group ID (optional)
+     * @param currentUserId the ID of the calling user
      * @return the created folder info
      */
     @PostMapping("/folders")
@@ -81,10 +163,8 @@ public class FileController {
             @RequestParam("folderName") String folderName,
             @RequestParam(value = "parentFolderId", required = false) UUID parentFolderId,
             @RequestParam(value = "isPublic", defaultValue = "false") boolean isPublic,
-            @RequestParam(value = "groupId", required = false) UUID groupId) {
-        
-        // Get current user ID from security context
-        UUID currentUserId = UUID.randomUUID(); // TODO: Get from security context
+            @RequestParam(value = "groupId", required = false) UUID groupId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
         
         FileInfoDto folderDto = fileService.createFolder(folderName, parentFolderId, currentUserId, groupId, isPublic);
         return ResponseEntity.ok(ApiResponse.success(folderDto));
@@ -94,6 +174,7 @@ public class FileController {
      * Download file
      *
      * @param fileId the file ID
+     * @param currentUserId the ID of the calling user
      * @param response the HTTP response
      * @return the file content
      * @throws IOException if an I/O error occurs
@@ -102,26 +183,12 @@ public class FileController {
     @Operation(summary = "Download file", description = "Download a file by ID")
     public ResponseEntity<InputStreamResource> downloadFile(
             @PathVariable UUID fileId,
+            @RequestHeader("X-User-Id") UUID currentUserId,
             HttpServletResponse response) throws IOException {
         
-        // Get current user ID from security context
-        UUID currentUserId = UUID.randomUUID(); // TODO: Get from security context
-        
-        // Get file info
-        FileInfoDto fileInfo = fileService.getFileInfo(fileId);
-        
-        // Check if file is a folder
-        if (fileInfo.isFolder()) {
-            return ResponseEntity.badRequest().build();
-        }
-        
-        // Check if user has permission to download
-        if (!fileInfo.isPublic() && !fileService.hasPermission(fileId, currentUserId, PermissionType.READ)) {
-            return ResponseEntity.status(403).build();
-        }
-        
-        // Download file
-        InputStream inputStream = fileService.downloadFile(fileId);
+        // Resolve the file with its access check once; fails if the user has no read access or it is a folder
+        FileService.FileDownload download = fileService.downloadFile(fileId, currentUserId);
+        FileInfoDto fileInfo = download.fileInfo();
         
         // Set headers
         HttpHeaders headers = new HttpHeaders();
@@ -136,20 +203,126 @@ public class FileController {
         
         return ResponseEntity.ok()
                 .headers(headers)
+                .body(new InputStreamResource(download.content()));
+    }
+    
+    /**
+     * Get storage quota
+     *
+     * @param groupId the group ID (optional)
+     * @param currentUserId the ID of the calling user
+     * @return the usage and limit of the current user or the group
+     */
+    @GetMapping("/quota")
+    @Operation(summary = "Get storage quota", description = "Get the storage usage and limit of the current user or a group")
+    public ResponseEntity<ApiResponse<QuotaDto>> getQuota(
+            @RequestParam(required = false) UUID groupId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        QuotaDto quota = fileService.getQuota(currentUserId, groupId);
+        return ResponseEntity.ok(ApiResponse.success(quota));
+    }
+    
+    /**
+     * Get a thumbnail or preview of an image
+     *
+     * @param fileId the file ID
+     * @param variant the derivative variant
+     * @param request the web request
+     * @param currentUserId the ID of the calling user
+     * @return the JPEG image
+     */
+    @GetMapping("/files/{fileId}/thumbnail")
+    @Operation(summary = "Get thumbnail", description = "Get a small thumbnail or a larger preview of an image")
+    public ResponseEntity<InputStreamResource> getThumbnail(
+            @PathVariable UUID fileId,
+            @RequestParam(defaultValue = "THUMBNAIL") ThumbnailService.Variant variant,
+            WebRequest request,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        // Check access before answering from the ETag, so a 304 does not reveal that the file exists
+        if (!fileService.hasPermission(fileId, currentUserId, PermissionType.READ)) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        // Derivatives never change for a file, so the ETag only depends on the file and variant
+        String etag = "\"" + fileId + "-" + variant.name().toLowerCase() + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofDays(thumbnailCacheDays)).cachePrivate();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        
+        InputStream inputStream = fileService.downloadThumbnail(fileId, currentUserId, variant);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.IMAGE_JPEG)
                 .body(new InputStreamResource(inputStream));
     }
     
+    /**
+     * Download a folder as a ZIP archive
+     *
+     * @param folderId the folder ID
+     * @param currentUserId the ID of the calling user
+     * @return the streamed archive
+     */
+    @GetMapping("/folders/{folderId}/download")
+    @Operation(summary = "Download folder", description = "Download a folder and everything below it as a ZIP archive")
+    public ResponseEntity<StreamingResponseBody> downloadFolder(
+            @PathVariable UUID folderId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        ZipDownloadService.ZipPlan plan = fileService.prepareZipDownload(List.of(folderId), currentUserId, null);
+        return zipResponse(plan);
+    }
+    
+    /**
+     * Download a selection of files and folders as a ZIP archive
+     *
+     * @param request the selection
+     * @param currentUserId the ID of the calling user
+     * @return the streamed archive
+     */
+    @PostMapping("/files/download/zip")
+    @Operation(summary = "Download selection", description = "Download several files and folders as one ZIP archive")
+    public ResponseEntity<StreamingResponseBody> downloadZip(
+            @Valid @RequestBody ZipDownloadRequest request,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        ZipDownloadService.ZipPlan plan = fileService.prepareZipDownload(request.getFileIds(), currentUserId, request.getArchiveName());
+        return zipResponse(plan);
+    }
+    
+    /**
+     * Get presigned download URL
+     *
+     * @param fileId the file ID
+     * @param currentUserId the ID of the calling user
+     * @return the presigned download URL
+     */
+    @GetMapping("/files/{fileId}/download-url")
+    @Operation(summary = "Get download URL", description = "Get a short-lived URL to download a file directly from storage")
+    public ResponseEntity<ApiResponse<PresignedUrlDto>> getDownloadUrl(
+            @PathVariable UUID fileId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        PresignedUrlDto presignedUrl = fileService.getPresignedDownloadUrl(fileId, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(presignedUrl));
+    }
+    
     /**
      * Delete file or folder
      *
      * @param fileId the file ID
+     * @param currentUserId the ID of the calling user
      * @return the response
      */
     @DeleteMapping("/files/{fileId}")
     @Operation(summary = "Delete file or folder", description = "Delete a file or folder by ID (soft delete)")
-    public ResponseEntity<ApiResponse<Void>> deleteFile(@PathVariable UUID fileId) {
-        // Get current user ID from security context
-        UUID currentUserId = UUID.randomUUID(); // TODO: Get from security context
+    public ResponseEntity<ApiResponse<Void>> deleteFile(
+            @PathVariable UUID fileId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
         
         // Check if user has permission to delete
         if (!fileService.hasPermission(fileId, currentUserId, PermissionType.OWNER)) {
@@ -160,17 +333,57 @@ public class FileController {
         return ResponseEntity.ok(ApiResponse.success(null));
     }
     
+    /**
+     * Delete folder
+     *
+     * @param folderId the folder ID
+     * @param currentUserId the ID of the calling user
+     * @return the background job removing the folder's contents
+     */
+    @DeleteMapping("/folders/{folderId}")
+    @Operation(summary = "Delete folder", description = "Soft delete a folder tree and remove its files from storage in the background")
+    public ResponseEntity<ApiResponse<FileJobDto>> deleteFolder(
+            @PathVariable UUID folderId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        // Check if user has permission to delete
+        if (!fileService.hasPermission(folderId, currentUserId, PermissionType.OWNER)) {
+            return ResponseEntity.status(403).body(ApiResponse.error("You don't have permission to delete this folder"));
+        }
+        
+        FileJobDto job = fileService.deleteFolder(folderId, currentUserId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success(job));
+    }
+    
+    /**
+     * Get background job progress
+     *
+     * @param jobId the job ID
+     * @param currentUserId the ID of the calling user
+     * @return the job
+     */
+    @GetMapping("/jobs/{jobId}")
+    @Operation(summary = "Get job progress", description = "Get the status and progress of a background file job")
+    public ResponseEntity<ApiResponse<FileJobDto>> getJob(
+            @PathVariable UUID jobId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        FileJobDto job = fileService.getJob(jobId, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(job));
+    }
+    
     /**
      * Restore file or folder from trash
      *
      * @param fileId the file ID
+     * @param currentUserId the ID of the calling user
      * @return the restored file info
      */
     @PutMapping("/files/{fileId}/restore")
     @Operation(summary = "Restore file or folder", description = "Restore a file or folder from trash")
-    public ResponseEntity<ApiResponse<FileInfoDto>> restoreFile(@PathVariable UUID fileId) {
-        // Get current user ID from security context
-        UUID currentUserId = UUID.randomUUID(); // TODO: Get from security context
+    public ResponseEntity<ApiResponse<FileInfoDto>> restoreFile(
+            @PathVariable UUID fileId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
         
         // Check if user has permission to restore
         if (!fileService.hasPermission(fileId, currentUserId, PermissionType.OWNER)) {
@@ -185,21 +398,17 @@ public class FileController {
      * Get file info
      *
      * @param fileId the file ID
+     * @param currentUserId the ID of the calling user
      * @return the file info
      */
     @GetMapping("/files/{fileId}")
     @Operation(summary = "Get file info", description = "Get file information by ID")
-    public ResponseEntity<ApiResponse<FileInfoDto>> getFileInfo(@PathVariable UUID fileId) {
-        // Get current user ID from security context
-        UUID currentUserId = UUID.randomUUID(); // TODO: Get from security context
-        
-        // Get file info
-        FileInfoDto fileInfo = fileService.getFileInfo(fileId);
+    public ResponseEntity<ApiResponse<FileInfoDto>> getFileInfo(
+            @PathVariable UUID fileId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
         
-        // Check if user has permission to view
-        if (!fileInfo.isPublic() && !fileService.hasPermission(fileId, currentUserId, PermissionType.READ)) {
-            return ResponseEntity.status(403).body(ApiResponse.error("You don't have permission to view this file"));
-        }
+        // Get file info; fails if the user has no read access
+        FileInfoDto fileInfo = fileService.getFileInfo(fileId, currentUserId);
         
         return ResponseEntity.ok(ApiResponse.success(fileInfo));
     }
@@ -229,6 +438,7 @@ public class FileController {
      * @param folderId the folder ID
      * @param page the page number
      * @param size the page size
+     * @param currentUserId the ID of the calling user
      * @return the files
      */
     @GetMapping("/folders/{folderId}/files")
@@ -236,10 +446,8 @@ public class FileController {
     public ResponseEntity<ApiResponse<PageDto<FileInfoDto>>> getFilesByParentFolder(
             @PathVariable UUID folderId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        
-        // Get current user ID from security context
-        UUID currentUserId = UUID.randomUUID(); // TODO: Get from security context
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
         
         // Check if user has permission to view folder
         if (!fileService.hasPermission(folderId, currentUserId, PermissionType.READ)) {
@@ -254,13 +462,14 @@ public class FileController {
      * Get folder tree
      *
      * @param folderId the folder ID
+     * @param currentUserId the ID of the calling user
      * @return the folder tree
      */
     @GetMapping("/folders/{folderId}/tree")
     @Operation(summary = "Get folder tree", description = "Get the folder tree starting from a specific folder")
-    public ResponseEntity<ApiResponse<List<FileInfoDto>>> getFolderTree(@PathVariable UUID folderId) {
-        // Get current user ID from security context
-        UUID currentUserId = UUID.randomUUID(); // TODO: Get from security context
+    public ResponseEntity<ApiResponse<List<FileInfoDto>>> getFolderTree(
+            @PathVariable UUID folderId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
         
         // Check if user has permission to view folder
         if (!fileService.hasPermission(folderId, currentUserId, PermissionType.READ)) {
@@ -271,29 +480,64 @@ public class FileController {
         return ResponseEntity.ok(ApiResponse.success(folderTree));
     }
     
+    /**
+     * Get folder statistics
+     *
+     * @param folderId the folder ID
+     * @param currentUserId the ID of the calling user
+     * @return the folder size and item counts
+     */
+    @GetMapping("/folders/{folderId}/stats")
+    @Operation(summary = "Get folder statistics", description = "Get the total size and number of files and folders below a folder")
+    public ResponseEntity<ApiResponse<FolderStatsDto>> getFolderStats(
+            @PathVariable UUID folderId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        FolderStatsDto stats = fileService.getFolderStats(folderId, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+    
+    /**
+     * Get breadcrumbs
+     *
+     * @param fileId the file ID
+     * @param currentUserId the ID of the calling user
+     * @return the ancestor folders, root first
+     */
+    @GetMapping("/files/{fileId}/breadcrumbs")
+    @Operation(summary = "Get breadcrumbs", description = "Get the folders above a file or folder, starting from the root")
+    public ResponseEntity<ApiResponse<List<FileInfoDto>>> getBreadcrumbs(
+            @PathVariable UUID fileId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        List<FileInfoDto> breadcrumbs = fileService.getBreadcrumbs(fileId, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(breadcrumbs));
+    }
+    
     /**
      * Search files
      *
      * @param query the search query
-     * @param fileType the file type (optional)
+     * @param mode the search mode (optional)
+     * @param fileType the media type (optional)
      * @param folderId the folder ID (optional)
-     * @param page the page number
+     * @param cursor the cursor returned with the previous page (optional)
      * @param size the page size
+     * @param currentUserId the ID of the calling user
      * @return the search results
      */
     @GetMapping("/files/search")
-    @Operation(summary = "Search files", description = "Search files by name, type, and folder")
-    public ResponseEntity<ApiResponse<PageDto<FileInfoDto>>> searchFiles(
+    @Operation(summary = "Search files", description = "Search files by name prefix, similarity or relevance, filtered by type and folder")
+    public ResponseEntity<ApiResponse<FileSearchResultDto>> searchFiles(
             @RequestParam String query,
+            @RequestParam(defaultValue = "RANKED") FileSearchService.Mode mode,
             @RequestParam(required = false) String fileType,
             @RequestParam(required = false) UUID folderId,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
         
-        // Get current user ID from security context
-        UUID currentUserId = UUID.randomUUID(); // TODO: Get from security context
-        
-        PageDto<FileInfoDto> searchResults = fileService.searchFiles(query, fileType, folderId, currentUserId, page, size);
+        FileSearchResultDto searchResults = fileSearchService.search(query, mode, fileType, folderId, currentUserId, cursor, size);
         return ResponseEntity.ok(ApiResponse.success(searchResults));
     }
     
@@ -302,16 +546,15 @@ public class FileController {
      *
      * @param fileId the file ID
      * @param request the share request
+     * @param currentUserId the ID of the calling user
      * @return the file permission
      */
     @PostMapping("/files/{fileId}/share")
     @Operation(summary = "Share file with user", description = "Share a file with another user with specific permissions")
     public ResponseEntity<ApiResponse<FilePermissionDto>> shareFile(
             @PathVariable UUID fileId,
-            @Valid @RequestBody ShareFileRequest request) {
-        
-        // Get current user ID from security context
-        UUID currentUserId = UUID.randomUUID(); // TODO: Get from security context
+            @Valid @RequestBody ShareFileRequest request,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
         
         // Check if user has permission to share
         if (!fileService.hasPermission(fileId, currentUserId, PermissionType.OWNER)) {
@@ -326,13 +569,14 @@ public class FileController {
      * Get file permissions
      *
      * @param fileId the file ID
+     * @param currentUserId the ID of the calling user
      * @return the file permissions
      */
     @GetMapping("/files/{fileId}/permissions")
     @Operation(summary = "Get file permissions", description = "Get all permissions for a file")
-    public ResponseEntity<ApiResponse<List<FilePermissionDto>>> getFilePermissions(@PathVariable UUID fileId) {
-        // Get current user ID from security context
-        UUID currentUserId = UUID.randomUUID(); // TODO: Get from security context
+    public ResponseEntity<ApiResponse<List<FilePermissionDto>>> getFilePermissions(
+            @PathVariable UUID fileId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
         
         // Check if user has permission to view permissions
         if (!fileService.hasPermission(fileId, currentUserId, PermissionType.OWNER)) {
@@ -348,16 +592,15 @@ public class FileController {
      *
      * @param fileId the file ID
      * @param userId the user ID
+     * @param currentUserId the ID of the calling user
      * @return the response
      */
     @DeleteMapping("/files/{fileId}/share/{userId}")
     @Operation(summary = "Remove file sharing", description = "Remove file sharing for a specific user")
     public ResponseEntity<ApiResponse<Void>> removeFileSharing(
             @PathVariable UUID fileId,
-            @PathVariable UUID userId) {
-        
-        // Get current user ID from security context
-        UUID currentUserId = UUID.randomUUID(); // TODO: Get from security context
+            @PathVariable UUID userId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
         
         // Check if user has permission to remove sharing
         if (!fileService.hasPermission(fileId, currentUserId, PermissionType.OWNER)) {
@@ -374,6 +617,7 @@ public class FileController {
      * @param folderId the folder ID
      * @param newName the new name (optional)
      * @param newParentId the new parent folder ID (optional)
+     * @param currentUserId the ID of the calling user
      * @return the updated folder info
      */
     @PutMapping("/folders/{folderId}")
@@ -381,17 +625,94 @@ public class FileController {
     public ResponseEntity<ApiResponse<FileInfoDto>> updateFolder(
             @PathVariable UUID folderId,
             @RequestParam(required = false) String newName,
-            @RequestParam(required = false) UUID newParentId) {
-        
-        // Get current user ID from security context
-        UUID currentUserId = UUID.randomUUID(); // TODO: Get from security context
+            @RequestParam(required = false) UUID newParentId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
         
         // Check if user has permission to update folder
         if (!fileService.hasPermission(folderId, currentUserId, PermissionType.WRITE)) {
             return ResponseEntity.status(403).body(ApiResponse.error("You don't have permission to update this folder"));
         }
         
-        FileInfoDto updatedFolder = fileService.updateFolder(folderId, newName, newParentId);
+        FileInfoDto updatedFolder = fileService.updateFolder(folderId, currentUserId, newName, newParentId);
         return ResponseEntity.ok(ApiResponse.success(updatedFolder));
     }
-}
\ No newline at end of file
+    
+    /**
+     * Move file or folder
+     *
+     * @param fileId the file or folder ID
+     * @param targetFolderId the target folder ID (optional, top level if omitted)
+     * @param currentUserId the ID of the calling user
+     * @return the moved file info
+     */
+    @PostMapping("/files/{fileId}/move")
+    @Operation(summary = "Move file or folder", description = "Move a file or a whole folder into another folder")
+    public ResponseEntity<ApiResponse<FileInfoDto>> moveFile(
+            @PathVariable UUID fileId,
+            @RequestParam(required = false) UUID targetFolderId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        // Check if user has permission to move
+        if (!fileService.hasPermission(fileId, currentUserId, PermissionType.WRITE)) {
+            return ResponseEntity.status(403).body(ApiResponse.error("You don't have permission to move this file"));
+        }
+        
+        FileInfoDto fileInfo = fileService.moveFile(fileId, currentUserId, targetFolderId);
+        return ResponseEntity.ok(ApiResponse.success(fileInfo));
+    }
+    
+    /**
+     * Copy file
+     *
+     * @param fileId the file ID
+     * @param targetFolderId the target folder ID (optional, top level if omitted)
+     * @param currentUserId the ID of the calling user
+     * @return the copied file info
+     */
+    @PostMapping("/files/{fileId}/copy")
+    @Operation(summary = "Copy file", description = "Copy a file into a folder without transferring its content through the client")
+    public ResponseEntity<ApiResponse<FileInfoDto>> copyFile(
+            @PathVariable UUID fileId,
+            @RequestParam(required = false) UUID targetFolderId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        FileInfoDto fileInfo = fileService.copyFile(fileId, currentUserId, targetFolderId);
+        return ResponseEntity.ok(ApiResponse.success(fileInfo));
+    }
+    
+    /**
+     * Copy folder
+     *
+     * @param folderId the folder ID
+     * @param targetFolderId the target folder ID (optional, top level if omitted)
+     * @param currentUserId the ID of the calling user
+     * @return the background job copying the folder's contents
+     */
+    @PostMapping("/folders/{folderId}/copy")
+    @Operation(summary = "Copy folder", description = "Copy a folder tree into another folder in the background")
+    public ResponseEntity<ApiResponse<FileJobDto>> copyFolder(
+            @PathVariable UUID folderId,
+            @RequestParam(required = false) UUID targetFolderId,
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        
+        FileJobDto job = fileService.copyFolder(folderId, currentUserId, targetFolderId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success(job));
+    }
+    
+    /**
+     * Build a streamed ZIP response for an archive plan
+     *
+     * @param plan the archive plan
+     * @return the response
+     */
+    private ResponseEntity<StreamingResponseBody> zipResponse(ZipDownloadService.ZipPlan plan) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(plan.archiveName(), StandardCharsets.UTF_8)
+                .build());
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        
+        StreamingResponseBody body = out -> zipDownloadService.write(plan.items(), out);
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.file.controller;
+
+import com.example.common.dto.ApiResponse;
+import com.example.file.service.GroupMemberService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * REST controller for managing the members of file groups
+ */
+@RestController
+@RequestMapping("/api/admin/groups")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Group Administration", description = "APIs for managing who can read a group's files")
+public class GroupAdminController {
+
+    private final GroupMemberService groupMemberService;
+
+    /**
+     * Get the members of a group
+     *
+     * @param groupId the group ID
+     * @param authorities the caller's authorities forwarded by the gateway
+     * @return the user IDs of the members
+     */
+    @GetMapping("/{groupId}/members")
+    @Operation(summary = "Get group members", description = "Get the users who can read the files of a group")
+    public ResponseEntity<ApiResponse<List<UUID>>> getMembers(
+            @PathVariable UUID groupId,
+            @RequestHeader(value = AdminAccess.AUTHORITIES_HEADER, required = false) String authorities) {
+        
+        if (!AdminAccess.isAdmin(authorities)) {
+            return ResponseEntity.status(403).body(ApiResponse.error("Only administrators can manage groups"));
+        }
+        
+        return ResponseEntity.ok(ApiResponse.success(groupMemberService.getMembers(groupId)));
+    }
+
+    /**
+     * Add a user to a group
+     *
+     * @param groupId the group ID
+     * @param userId the user ID
+     * @param authorities the caller's authorities forwarded by the gateway
+     * @return the response
+     */
+    @PutMapping("/{groupId}/members/{userId}")
+    @Operation(summary = "Add group member", description = "Give a user read access to the files of a group")
+    public ResponseEntity<ApiResponse<Void>> addMember(
+            @PathVariable UUID groupId,
+            @PathVariable UUID userId,
+            @RequestHeader(value = AdminAccess.AUTHORITIES_HEADER, required = false) String authorities) {
+        
+        if (!AdminAccess.isAdmin(authorities)) {
+            return ResponseEntity.status(403).body(ApiResponse.error("Only administrators can manage groups"));
+        }
+        
+        groupMemberService.addMember(groupId, userId);
+        return ResponseEntity.ok(ApiResponse.success(null));
+    }
+
+    /**
+     * Remove a user from a group
+     *
+     * @param groupId the group ID
+     * @param userId the user ID
+     * @param authorities the caller's authorities forwarded by the gateway
+     * @return the response
+     */
+    @DeleteMapping("/{groupId}/members/{userId}")
+    @Operation(summary = "Remove group member", description = "Revoke a user's read access to the files of a group")
+    public ResponseEntity<ApiResponse<Void>> removeMember(
+            @PathVariable UUID groupId,
+            @PathVariable UUID userId,
+            @RequestHeader(value = AdminAccess.AUTHORITIES_HEADER, required = false) String authorities) {
+        
+        if (!AdminAccess.isAdmin(authorities)) {
+            return ResponseEntity.status(403).body(ApiResponse.error("Only administrators can manage groups"));
+        }
+        
+        groupMemberService.removeMember(groupId, userId);
+        return ResponseEntity.ok(ApiResponse.success(null));
+    }
+}
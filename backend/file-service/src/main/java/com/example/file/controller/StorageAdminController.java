@@ -0,0 +1,97 @@
+package com.example.file.controller;
+
+import com.example.common.dto.ApiResponse;
+import com.example.file.dto.StorageObjectPageDto;
+import com.example.file.storage.ObjectPage;
+import com.example.file.storage.StorageService;
+import com.example.file.storage.StoredObject;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * REST controller for inspecting the storage backend
+ */
+@RestController
+@RequestMapping("/api/admin/storage")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Storage Administration", description = "APIs for auditing stored objects")
+public class StorageAdminController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final StorageService storageService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * List stored objects one page at a time
+     *
+     * @param prefix the object name prefix (optional)
+     * @param token the token of the previous page (optional)
+     * @param size the page size
+     * @param authorities the caller's authorities forwarded by the gateway
+     * @return the page of objects
+     */
+    @GetMapping("/objects")
+    @Operation(summary = "List stored objects", description = "List stored objects one page at a time using a continuation token")
+    public ResponseEntity<ApiResponse<StorageObjectPageDto>> listObjects(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(required = false) String token,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestHeader(value = AdminAccess.AUTHORITIES_HEADER, required = false) String authorities) {
+        
+        if (!AdminAccess.isAdmin(authorities)) {
+            return ResponseEntity.status(403).body(ApiResponse.error("Only administrators can list stored objects"));
+        }
+        
+        ObjectPage page = storageService.listObjectsPage(prefix, token, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        StorageObjectPageDto dto = StorageObjectPageDto.builder()
+                .objects(page.objects())
+                .nextToken(page.nextToken())
+                .build();
+        return ResponseEntity.ok(ApiResponse.success(dto));
+    }
+
+    /**
+     * Export the full listing as newline-delimited JSON
+     *
+     * @param prefix the object name prefix (optional)
+     * @param authorities the caller's authorities forwarded by the gateway
+     * @return the listing, streamed as it is read from storage
+     */
+    @GetMapping("/objects/export")
+    @Operation(summary = "Export stored objects", description = "Stream every stored object below a prefix as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> exportObjects(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestHeader(value = AdminAccess.AUTHORITIES_HEADER, required = false) String authorities) {
+        
+        if (!AdminAccess.isAdmin(authorities)) {
+            return ResponseEntity.status(403).build();
+        }
+        
+        StreamingResponseBody body = out -> {
+            try (Stream<StoredObject> objects = storageService.listObjects(prefix)) {
+                Iterator<StoredObject> iterator = objects.iterator();
+                while (iterator.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.file.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the outcome of one file in a bulk upload
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUploadResultDto {
+
+    private String fileName;
+    private boolean success;
+    private FileInfoDto file;
+    private String error;
+
+    public static BulkUploadResultDto success(String fileName, FileInfoDto file) {
+        return BulkUploadResultDto.builder()
+                .fileName(fileName)
+                .success(true)
+                .file(file)
+                .build();
+    }
+
+    public static BulkUploadResultDto failure(String fileName, String error) {
+        return BulkUploadResultDto.builder()
+                .fileName(fileName)
+                .success(false)
+                .error(error)
+                .build();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.file.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Request DTO for registering a file uploaded through a presigned URL
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompleteUploadRequest {
+
+    @NotBlank(message = "Object name is required")
+    private String objectName;
+
+    @NotBlank(message = "File name is required")
+    private String fileName;
+    
+    @NotBlank(message = "Reservation ID is required")
+    private String reservationId;
+
+    private UUID parentFolderId;
+
+    private UUID groupId;
+
+    private boolean isPublic;
+}
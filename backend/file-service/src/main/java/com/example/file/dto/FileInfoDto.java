@@ -1,5 +1,6 @@
 package com.example.file.dto;
 
+import com.example.file.entity.FileInfo.ThumbnailStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -30,6 +31,10 @@ public class FileInfoDto {
     private UUID groupId;
     private boolean isPublic;
     private String accessPermissions;
+    private ThumbnailStatus thumbnailStatus;
+    private Long totalSize;
+    private Long fileCount;
+    private Long folderCount;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.example.file.dto;
+
+import com.example.file.entity.FileJob.JobStatus;
+import com.example.file.entity.FileJob.JobType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO for background file job progress
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileJobDto {
+    private UUID id;
+    private JobType jobType;
+    private JobStatus status;
+    private UUID targetId;
+    private UUID destinationId;
+    private UUID requestedBy;
+    private Long totalItems;
+    private long processedItems;
+    private long failedItems;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+}
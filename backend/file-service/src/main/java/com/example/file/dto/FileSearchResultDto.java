@@ -0,0 +1,22 @@
+package com.example.file.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for a page of search results
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileSearchResultDto {
+    private List<FileInfoDto> items;
+    private String nextCursor;
+    private Long totalCount;
+    private boolean totalCountExact;
+}
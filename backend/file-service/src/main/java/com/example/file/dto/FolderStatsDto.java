@@ -0,0 +1,22 @@
+package com.example.file.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * DTO for folder size and item counts
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FolderStatsDto {
+    private UUID folderId;
+    private long totalSize;
+    private long fileCount;
+    private long folderCount;
+}
@@ -0,0 +1,36 @@
+package com.example.file.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Request DTO for starting a direct-to-storage upload
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadRequest {
+
+    @NotBlank(message = "File name is required")
+    private String fileName;
+
+    private String contentType;
+
+    @NotNull(message = "File size is required")
+    @PositiveOrZero(message = "File size must not be negative")
+    private Long fileSize;
+
+    private UUID parentFolderId;
+
+    private UUID groupId;
+
+    private boolean isPublic;
+}
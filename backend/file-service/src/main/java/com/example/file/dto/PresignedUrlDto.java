@@ -0,0 +1,24 @@
+package com.example.file.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a short-lived presigned storage URL
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUrlDto {
+
+    private String url;
+    private String method;
+    private String objectName;
+    private String reservationId;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,23 @@
+package com.example.file.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * DTO for the storage usage of an owner or group
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuotaDto {
+    private String scope;
+    private UUID scopeId;
+    private long usedBytes;
+    private long reservedBytes;
+    private Long limitBytes;
+}
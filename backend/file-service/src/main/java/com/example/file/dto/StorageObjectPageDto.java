@@ -0,0 +1,21 @@
+package com.example.file.dto;
+
+import com.example.file.storage.StoredObject;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for one page of a storage listing
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageObjectPageDto {
+    private List<StoredObject> objects;
+    private String nextToken;
+}
@@ -0,0 +1,23 @@
+package com.example.file.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request for downloading a selection of files and folders as one ZIP archive
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ZipDownloadRequest {
+    @NotEmpty
+    private List<UUID> fileIds;
+    private String archiveName;
+}
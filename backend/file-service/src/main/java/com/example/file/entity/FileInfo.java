@@ -3,6 +3,7 @@ package com.example.file.entity;
 import com.example.common.model.BaseModel;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
@@ -69,6 +70,26 @@ public class FileInfo extends BaseModel {
     @Column(name = "access_permissions")
     private String accessPermissions;
     
+    /**
+     * Folder aggregates over the whole subtree, maintained by the database
+     */
+    @Column(name = "total_size", insertable = false, updatable = false)
+    private Long totalSize;
+    
+    @Column(name = "file_count", insertable = false, updatable = false)
+    private Long fileCount;
+    
+    @Column(name = "folder_count", insertable = false, updatable = false)
+    private Long folderCount;
+    
+    /**
+     * Thumbnail status: NONE, PENDING, READY, FAILED
+     */
+    @Column(name = "thumbnail_status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private ThumbnailStatus thumbnailStatus = ThumbnailStatus.NONE;
+    
     @OneToMany(mappedBy = "file", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<FilePermission> permissions = new HashSet<>();
     
@@ -95,4 +116,14 @@ public class FileInfo extends BaseModel {
         permission.setFile(null);
         return this;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Thumbnail generation states
+     */
+    public enum ThumbnailStatus {
+        NONE,
+        PENDING,
+        READY,
+        FAILED
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.file.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entity for tracking long-running background file jobs
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "file_job")
+public class FileJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+    
+    @Column(name = "job_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private JobType jobType;
+    
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private JobStatus status;
+    
+    /**
+     * The file or folder the job operates on
+     */
+    @Column(name = "target_id", nullable = false)
+    private UUID targetId;
+    
+    /**
+     * The folder a copy job writes into, or null for the top level
+     */
+    @Column(name = "destination_id")
+    private UUID destinationId;
+    
+    @Column(name = "requested_by")
+    private UUID requestedBy;
+    
+    @Column(name = "total_items")
+    private Long totalItems;
+    
+    @Column(name = "processed_items", nullable = false)
+    private long processedItems;
+    
+    @Column(name = "failed_items", nullable = false)
+    private long failedItems;
+    
+    /**
+     * Keyset position of the last processed item, so an interrupted job can resume
+     */
+    @Column(name = "job_cursor")
+    private String cursor;
+    
+    /**
+     * Number of times the job was retried after failing
+     */
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+    
+    @Column(name = "error_message")
+    private String errorMessage;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * Job types
+     */
+    public enum JobType {
+        FOLDER_DELETE,
+        FOLDER_COPY
+    }
+    
+    /**
+     * Job statuses
+     */
+    public enum JobStatus {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.file.mapper;
+
+import com.example.file.dto.FileJobDto;
+import com.example.file.entity.FileJob;
+import org.mapstruct.Mapper;
+
+/**
+ * Mapper for the entity {@link FileJob} and its DTO {@link FileJobDto}.
+ */
+@Mapper(componentModel = "spring")
+public interface FileJobMapper {
+
+    /**
+     * Convert entity to DTO
+     *
+     * @param entity the entity
+     * @return the DTO
+     */
+    FileJobDto toDto(FileJob entity);
+}
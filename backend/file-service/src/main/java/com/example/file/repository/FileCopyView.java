@@ -0,0 +1,39 @@
+package com.example.file.repository;
+
+import java.util.UUID;
+
+/**
+ * Projection for a file to be copied by a folder copy job
+ */
+public interface FileCopyView {
+
+    /**
+     * @return the source file ID
+     */
+    UUID getSourceId();
+
+    /**
+     * @return the ID the copy will get
+     */
+    UUID getTargetId();
+
+    /**
+     * @return the source object name
+     */
+    String getSourcePath();
+
+    /**
+     * @return the object name the copy will get
+     */
+    String getTargetPath();
+
+    /**
+     * @return the file size in bytes
+     */
+    long getFileSize();
+
+    /**
+     * @return true if the source has generated thumbnails
+     */
+    boolean getThumbnailReady();
+}
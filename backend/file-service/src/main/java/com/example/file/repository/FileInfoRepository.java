@@ -1,13 +1,18 @@
 package com.example.file.repository;
 
 import com.example.file.entity.FileInfo;
+import com.example.file.entity.FileInfo.ThumbnailStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -89,13 +94,587 @@ public interface FileInfoRepository extends JpaRepository<FileInfo, UUID> {
     List<FileInfo> findByParentFolderIdAndIsDeletedFalse(UUID parentFolderId);
     
     /**
-     * Search files by name and owner ID
+     * Find files in a folder
      *
-     * @param name the file name to search for
-     * @param ownerId the owner ID
+     * @param parentFolderId the parent folder ID
      * @param pageable pagination information
      * @return page of files
      */
-    @Query("SELECT f FROM FileInfo f WHERE f.originalName LIKE %:name% AND f.ownerId = :ownerId AND f.isDeleted = false")
-    Page<FileInfo> searchByNameAndOwnerId(@Param("name") String name, @Param("ownerId") UUID ownerId, Pageable pageable);
-}
\ No newline at end of file
+    Page<FileInfo> findByParentFolderIdAndIsDeletedFalse(UUID parentFolderId, Pageable pageable);
+    
+    /**
+     * Find everything below a folder, breadth first, in one query
+     *
+     * @param rootId the root folder ID
+     * @param foldersOnly whether to return folders only
+     * @param maxDepth the maximum depth below the root (0 returns direct children only)
+     * @return list of descendants ordered by depth and name
+     */
+    @Query(value = "WITH RECURSIVE subtree AS (" +
+                   "    SELECT id, 0 AS depth FROM file_info" +
+                   "    WHERE parent_folder_id = :rootId AND is_deleted = false AND (is_folder = true OR :foldersOnly = false)" +
+                   "    UNION ALL" +
+                   "    SELECT f.id, s.depth + 1 FROM file_info f JOIN subtree s ON f.parent_folder_id = s.id" +
+                   "    WHERE f.is_deleted = false AND (f.is_folder = true OR :foldersOnly = false) AND s.depth < :maxDepth" +
+                   ") " +
+                   "SELECT f.* FROM file_info f JOIN subtree s ON f.id = s.id ORDER BY s.depth, f.original_name",
+           nativeQuery = true)
+    List<FileInfo> findSubtree(@Param("rootId") UUID rootId, @Param("foldersOnly") boolean foldersOnly,
+                               @Param("maxDepth") int maxDepth);
+    
+    /**
+     * Find the ancestors of a file or folder in one query
+     *
+     * @param id the file ID
+     * @return list of ancestor folders, root first
+     */
+    @Query(value = "WITH RECURSIVE ancestors AS (" +
+                   "    SELECT id, parent_folder_id, 0 AS depth FROM file_info WHERE id = :id" +
+                   "    UNION ALL" +
+                   "    SELECT f.id, f.parent_folder_id, a.depth + 1 FROM file_info f JOIN ancestors a ON f.id = a.parent_folder_id" +
+                   ") " +
+                   "SELECT f.* FROM file_info f JOIN ancestors a ON f.id = a.id WHERE a.depth > 0 ORDER BY a.depth DESC",
+           nativeQuery = true)
+    List<FileInfo> findAncestors(@Param("id") UUID id);
+    
+    /**
+     * Read the aggregates of a folder, including changes not yet compacted
+     *
+     * @param folderId the folder ID
+     * @return the folder statistics
+     */
+    @Query(value = "SELECT f.total_size + COALESCE(SUM(d.size_delta), 0) AS \"totalSize\", " +
+                   "f.file_count + COALESCE(SUM(d.file_delta), 0) AS \"fileCount\", " +
+                   "f.folder_count + COALESCE(SUM(d.folder_delta), 0) AS \"folderCount\" " +
+                   "FROM file_info f LEFT JOIN folder_stats_delta d ON d.folder_id = f.id " +
+                   "WHERE f.id = :folderId GROUP BY f.id",
+           nativeQuery = true)
+    FolderStatsView findFolderStats(@Param("folderId") UUID folderId);
+    
+    /**
+     * Append a change to the aggregates of a folder and all its ancestors in one statement.
+     * Rows are only inserted, so concurrent changes under the same folder never wait on each other.
+     *
+     * @param folderId the folder that changed
+     * @param sizeDelta the change in total size
+     * @param fileDelta the change in file count
+     * @param folderDelta the change in folder count
+     * @param maxDepth the maximum number of ancestors to walk up
+     * @return the number of delta rows written
+     */
+    @Modifying
+    @Query(value = "WITH RECURSIVE ancestors AS (" +
+                   "    SELECT id, parent_folder_id, 0 AS depth FROM file_info WHERE id = :folderId" +
+                   "    UNION ALL" +
+                   "    SELECT f.id, f.parent_folder_id, a.depth + 1 FROM file_info f JOIN ancestors a ON f.id = a.parent_folder_id" +
+                   "    WHERE a.depth < :maxDepth" +
+                   ") " +
+                   "INSERT INTO folder_stats_delta (folder_id, size_delta, file_delta, folder_delta, created_at) " +
+                   "SELECT id, :sizeDelta, :fileDelta, :folderDelta, now() FROM ancestors",
+           nativeQuery = true)
+    int recordFolderStatsDelta(@Param("folderId") UUID folderId, @Param("sizeDelta") long sizeDelta,
+                               @Param("fileDelta") long fileDelta, @Param("folderDelta") long folderDelta,
+                               @Param("maxDepth") int maxDepth);
+    
+    /**
+     * Fold a batch of pending deltas into the folder aggregates. Each folder row is updated
+     * once per batch however many deltas it has, and concurrent compactors skip each other's rows.
+     *
+     * @param limit the maximum number of deltas to fold
+     * @return the number of folders updated
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "WITH batch AS (" +
+                   "    DELETE FROM folder_stats_delta WHERE id IN (" +
+                   "        SELECT id FROM folder_stats_delta ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED" +
+                   "    ) RETURNING folder_id, size_delta, file_delta, folder_delta" +
+                   "), summed AS (" +
+                   "    SELECT folder_id, SUM(size_delta) AS size_delta, SUM(file_delta) AS file_delta, " +
+                   "           SUM(folder_delta) AS folder_delta FROM batch GROUP BY folder_id" +
+                   ") " +
+                   "UPDATE file_info f SET total_size = f.total_size + s.size_delta, " +
+                   "file_count = f.file_count + s.file_delta, folder_count = f.folder_count + s.folder_delta " +
+                   "FROM summed s WHERE f.id = s.folder_id",
+           nativeQuery = true)
+    int compactFolderStatsDeltas(@Param("limit") int limit);
+    
+    /**
+     * Find live folder IDs in ID order, for walking all folders in batches
+     *
+     * @param afterId the last ID of the previous batch
+     * @param limit the batch size
+     * @return list of folder IDs
+     */
+    @Query(value = "SELECT id FROM file_info WHERE is_folder = true AND is_deleted = false AND id > :afterId " +
+                   "ORDER BY id LIMIT :limit",
+           nativeQuery = true)
+    List<UUID> findFolderIdsAfter(@Param("afterId") UUID afterId, @Param("limit") int limit);
+    
+    /**
+     * Recompute the aggregates of some folders from their subtrees. Pending deltas are
+     * subtracted so that aggregate plus pending deltas equals the recomputed value.
+     *
+     * @param folderIds the folder IDs
+     * @return the number of folders whose aggregates had drifted
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "WITH RECURSIVE subtree AS (" +
+                   "    SELECT f.parent_folder_id AS root_id, f.id, f.is_folder, f.file_size FROM file_info f" +
+                   "    WHERE f.parent_folder_id IN (:folderIds) AND f.is_deleted = false" +
+                   "    UNION ALL" +
+                   "    SELECT s.root_id, f.id, f.is_folder, f.file_size FROM file_info f JOIN subtree s ON f.parent_folder_id = s.id" +
+                   "    WHERE f.is_deleted = false" +
+                   "), computed AS (" +
+                   "    SELECT t.id, COALESCE(SUM(s.file_size) FILTER (WHERE NOT s.is_folder), 0) AS total_size, " +
+                   "           COUNT(s.id) FILTER (WHERE NOT s.is_folder) AS file_count, " +
+                   "           COUNT(s.id) FILTER (WHERE s.is_folder) AS folder_count " +
+                   "    FROM file_info t LEFT JOIN subtree s ON s.root_id = t.id WHERE t.id IN (:folderIds) GROUP BY t.id" +
+                   "), pending AS (" +
+                   "    SELECT folder_id, SUM(size_delta) AS size_delta, SUM(file_delta) AS file_delta, " +
+                   "           SUM(folder_delta) AS folder_delta FROM folder_stats_delta WHERE folder_id IN (:folderIds) GROUP BY folder_id" +
+                   "), target AS (" +
+                   "    SELECT c.id, c.total_size - COALESCE(p.size_delta, 0) AS total_size, " +
+                   "           c.file_count - COALESCE(p.file_delta, 0) AS file_count, " +
+                   "           c.folder_count - COALESCE(p.folder_delta, 0) AS folder_count " +
+                   "    FROM computed c LEFT JOIN pending p ON p.folder_id = c.id" +
+                   ") " +
+                   "UPDATE file_info f SET total_size = t.total_size, file_count = t.file_count, folder_count = t.folder_count " +
+                   "FROM target t WHERE f.id = t.id " +
+                   "AND (f.total_size <> t.total_size OR f.file_count <> t.file_count OR f.folder_count <> t.folder_count)",
+           nativeQuery = true)
+    int reconcileFolderStats(@Param("folderIds") List<UUID> folderIds);
+    
+    /**
+     * Sum stored bytes per owner and group over all live files
+     *
+     * @return the usage per owner and group
+     */
+    @Query(value = "SELECT owner_id AS \"ownerId\", group_id AS \"groupId\", SUM(file_size) AS \"bytes\" " +
+                   "FROM file_info WHERE is_folder = false AND is_deleted = false GROUP BY owner_id, group_id",
+           nativeQuery = true)
+    List<UsageView> sumUsage();
+    
+    /**
+     * Sum stored bytes per owner and group below a folder
+     *
+     * @param rootId the root folder ID
+     * @return the usage per owner and group
+     */
+    @Query(value = "WITH RECURSIVE subtree AS (" +
+                   "    SELECT id, is_folder, owner_id, group_id, file_size FROM file_info WHERE id = :rootId AND is_deleted = false" +
+                   "    UNION ALL" +
+                   "    SELECT f.id, f.is_folder, f.owner_id, f.group_id, f.file_size FROM file_info f JOIN subtree s ON f.parent_folder_id = s.id" +
+                   "    WHERE f.is_deleted = false" +
+                   ") " +
+                   "SELECT owner_id AS \"ownerId\", group_id AS \"groupId\", SUM(file_size) AS \"bytes\" " +
+                   "FROM subtree WHERE is_folder = false GROUP BY owner_id, group_id",
+           nativeQuery = true)
+    List<UsageView> sumSubtreeUsage(@Param("rootId") UUID rootId);
+    
+    /**
+     * Soft delete a folder and everything below it in one statement
+     *
+     * @param rootId the root folder ID
+     * @param deletedAt the deletion time
+     * @return number of affected rows
+     */
+    @Modifying
+    @Query(value = "WITH RECURSIVE subtree AS (" +
+                   "    SELECT id FROM file_info WHERE id = :rootId" +
+                   "    UNION ALL" +
+                   "    SELECT f.id FROM file_info f JOIN subtree s ON f.parent_folder_id = s.id WHERE f.is_deleted = false" +
+                   ") " +
+                   "UPDATE file_info SET is_deleted = true, deleted_at = :deletedAt, updated_at = :deletedAt " +
+                   "WHERE id IN (SELECT id FROM subtree) AND is_deleted = false",
+           nativeQuery = true)
+    int softDeleteSubtree(@Param("rootId") UUID rootId, @Param("deletedAt") LocalDateTime deletedAt);
+    
+    /**
+     * Count the stored objects below a deleted folder
+     *
+     * @param rootId the root folder ID
+     * @return number of files in the subtree
+     */
+    @Query(value = "WITH RECURSIVE subtree AS (" +
+                   "    SELECT id, file_path, is_folder FROM file_info WHERE id = :rootId" +
+                   "    UNION ALL" +
+                   "    SELECT f.id, f.file_path, f.is_folder FROM file_info f JOIN subtree s ON f.parent_folder_id = s.id WHERE f.is_deleted = true" +
+                   ") " +
+                   "SELECT count(*) FROM subtree WHERE is_folder = false",
+           nativeQuery = true)
+    long countDeletedSubtreeFiles(@Param("rootId") UUID rootId);
+    
+    /**
+     * Find the next batch of stored object names below a deleted folder, ordered by object name
+     *
+     * @param rootId the root folder ID
+     * @param afterPath the last object name of the previous batch (empty string for the first batch)
+     * @param limit the batch size
+     * @return list of object names
+     */
+    @Query(value = "WITH RECURSIVE subtree AS (" +
+                   "    SELECT id, file_path, is_folder FROM file_info WHERE id = :rootId" +
+                   "    UNION ALL" +
+                   "    SELECT f.id, f.file_path, f.is_folder FROM file_info f JOIN subtree s ON f.parent_folder_id = s.id WHERE f.is_deleted = true" +
+                   ") " +
+                   "SELECT file_path FROM subtree WHERE is_folder = false AND file_path > :afterPath " +
+                   "ORDER BY file_path LIMIT :limit",
+           nativeQuery = true)
+    List<String> findDeletedSubtreeObjectNames(@Param("rootId") UUID rootId, @Param("afterPath") String afterPath,
+                                               @Param("limit") int limit);
+    
+    /**
+     * ID of the copy of source row {@code s} made by a copy job. Deriving it from the job
+     * keeps the mapping from source to copy stable, so a resumed job never copies twice.
+     */
+    String COPY_ID = "CAST(md5(:jobId || CAST(s.id AS text)) AS uuid)";
+    
+    /**
+     * Object name of the copy of source row {@code s}, keeping the original extension
+     */
+    String COPY_OBJECT_NAME = "CAST(md5(:jobId || CAST(s.id AS text)) AS uuid) || COALESCE(substring(s.original_name from '\\.[^.]*$'), '')";
+    
+    /**
+     * Copy the folder structure of a subtree below a destination folder in one statement.
+     * Already copied folders are skipped.
+     *
+     * @param rootId the source root folder ID
+     * @param jobId the copy job ID
+     * @param destinationId the destination folder ID, or empty for the top level
+     * @param ownerId the owner of the copies
+     * @param groupId the group of the copies, or empty for none
+     * @param maxDepth the maximum depth to copy
+     * @return the number of folders copied
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "WITH RECURSIVE subtree AS (" +
+                   "    SELECT id, 0 AS depth FROM file_info WHERE id = :rootId AND is_deleted = false" +
+                   "    UNION ALL" +
+                   "    SELECT f.id, t.depth + 1 FROM file_info f JOIN subtree t ON f.parent_folder_id = t.id" +
+                   "    WHERE f.is_folder = true AND f.is_deleted = false AND t.depth < :maxDepth" +
+                   ") " +
+                   "INSERT INTO file_info (id, original_name, file_path, file_size, content_type, media_type, extension, is_folder, " +
+                   "    parent_folder_id, owner_id, group_id, is_public, access_permissions, is_deleted, thumbnail_status, created_at, updated_at) " +
+                   "SELECT " + COPY_ID + ", s.original_name, 'folders/' || CAST(gen_random_uuid() AS text) || '/', 0, " +
+                   "    s.content_type, s.media_type, s.extension, true, " +
+                   "    CASE WHEN t.depth = 0 THEN CAST(NULLIF(:destinationId, '') AS uuid) " +
+                   "         ELSE CAST(md5(:jobId || CAST(s.parent_folder_id AS text)) AS uuid) END, " +
+                   "    :ownerId, CAST(NULLIF(:groupId, '') AS uuid), s.is_public, s.access_permissions, false, 'NONE', now(), now() " +
+                   "FROM subtree t JOIN file_info s ON s.id = t.id " +
+                   "ON CONFLICT (id) DO NOTHING",
+           nativeQuery = true)
+    int insertFolderCopies(@Param("rootId") UUID rootId, @Param("jobId") String jobId,
+                           @Param("destinationId") String destinationId, @Param("ownerId") UUID ownerId,
+                           @Param("groupId") String groupId, @Param("maxDepth") int maxDepth);
+    
+    /**
+     * Count the files below a folder
+     *
+     * @param rootId the root folder ID
+     * @param maxDepth the maximum depth to walk
+     * @return the number of files
+     */
+    @Query(value = "WITH RECURSIVE subtree AS (" +
+                   "    SELECT id, 0 AS depth FROM file_info WHERE id = :rootId" +
+                   "    UNION ALL" +
+                   "    SELECT f.id, t.depth + 1 FROM file_info f JOIN subtree t ON f.parent_folder_id = t.id" +
+                   "    WHERE f.is_folder = true AND f.is_deleted = false AND t.depth < :maxDepth" +
+                   ") " +
+                   "SELECT count(*) FROM file_info f JOIN subtree t ON f.parent_folder_id = t.id " +
+                   "WHERE f.is_folder = false AND f.is_deleted = false",
+           nativeQuery = true)
+    long countSubtreeFiles(@Param("rootId") UUID rootId, @Param("maxDepth") int maxDepth);
+    
+    /**
+     * Find the next batch of files below a folder for a copy job, ordered by ID
+     *
+     * @param rootId the source root folder ID
+     * @param jobId the copy job ID
+     * @param afterId the ID of the last file of the previous batch
+     * @param limit the batch size
+     * @param maxDepth the maximum depth to walk
+     * @return the files with the IDs and object names of their copies
+     */
+    @Query(value = "WITH RECURSIVE subtree AS (" +
+                   "    SELECT id, 0 AS depth FROM file_info WHERE id = :rootId" +
+                   "    UNION ALL" +
+                   "    SELECT f.id, t.depth + 1 FROM file_info f JOIN subtree t ON f.parent_folder_id = t.id" +
+                   "    WHERE f.is_folder = true AND f.is_deleted = false AND t.depth < :maxDepth" +
+                   ") " +
+                   "SELECT s.id AS \"sourceId\", " + COPY_ID + " AS \"targetId\", s.file_path AS \"sourcePath\", " +
+                   "       " + COPY_OBJECT_NAME + " AS \"targetPath\", s.file_size AS \"fileSize\", " +
+                   "       s.thumbnail_status = 'READY' AS \"thumbnailReady\" " +
+                   "FROM file_info s JOIN subtree t ON s.parent_folder_id = t.id " +
+                   "WHERE s.is_folder = false AND s.is_deleted = false AND s.id > CAST(:afterId AS uuid) " +
+                   "ORDER BY s.id LIMIT :limit",
+           nativeQuery = true)
+    List<FileCopyView> findFileCopyBatch(@Param("rootId") UUID rootId, @Param("jobId") String jobId,
+                                         @Param("afterId") String afterId, @Param("limit") int limit,
+                                         @Param("maxDepth") int maxDepth);
+    
+    /**
+     * Register the copies of a batch of files whose objects have been copied. The copies
+     * go below the copied folders; already registered copies are skipped.
+     *
+     * @param sourceIds the source file IDs
+     * @param jobId the copy job ID
+     * @param ownerId the owner of the copies
+     * @param groupId the group of the copies, or empty for none
+     * @return the sizes of the files registered by this call
+     */
+    @Transactional
+    @Query(value = "WITH inserted AS (" +
+                   "    INSERT INTO file_info (id, original_name, file_path, file_size, content_type, media_type, extension, is_folder, " +
+                   "        parent_folder_id, owner_id, group_id, is_public, access_permissions, is_deleted, thumbnail_status, created_at, updated_at) " +
+                   "    SELECT " + COPY_ID + ", s.original_name, " + COPY_OBJECT_NAME + ", s.file_size, " +
+                   "        s.content_type, s.media_type, s.extension, false, " +
+                   "        CAST(md5(:jobId || CAST(s.parent_folder_id AS text)) AS uuid), " +
+                   "        :ownerId, CAST(NULLIF(:groupId, '') AS uuid), s.is_public, s.access_permissions, false, s.thumbnail_status, now(), now() " +
+                   "    FROM file_info s WHERE s.id IN (:sourceIds) " +
+                   "    ON CONFLICT (id) DO NOTHING RETURNING file_size" +
+                   ") " +
+                   "SELECT file_size FROM inserted",
+           nativeQuery = true)
+    List<Long> insertFileCopies(@Param("sourceIds") List<UUID> sourceIds, @Param("jobId") String jobId,
+                                @Param("ownerId") UUID ownerId, @Param("groupId") String groupId);
+    
+    /**
+     * Check if a file is registered for a storage object
+     *
+     * @param filePath the object name in storage
+     * @return true if a file row references the object
+     */
+    boolean existsByFilePath(String filePath);
+    
+    /**
+     * Find which of some object names are registered for a file, deleted or not
+     *
+     * @param filePaths the object names in storage
+     * @return the registered object names
+     */
+    @Query("SELECT f.filePath FROM FileInfo f WHERE f.filePath IN :filePaths")
+    List<String> findRegisteredFilePaths(@Param("filePaths") Collection<String> filePaths);
+    
+    /**
+     * Hard delete a batch of items that have been in the trash since before a cutoff, oldest
+     * first. Folders are only purged once nothing is left below them, so a tree is purged
+     * from the leaves up over successive batches. Concurrent purgers skip each other's rows.
+     *
+     * @param cutoff the deletion time before which items are purged
+     * @param limit the batch size
+     * @return the object names of the purged files, null for purged folders
+     */
+    @Transactional
+    @Query(value = "WITH batch AS (" +
+                   "    SELECT f.id FROM file_info f" +
+                   "    WHERE f.is_deleted = true AND COALESCE(f.deleted_at, f.updated_at) < :cutoff" +
+                   "    AND NOT EXISTS (SELECT 1 FROM file_info c WHERE c.parent_folder_id = f.id)" +
+                   "    ORDER BY COALESCE(f.deleted_at, f.updated_at), f.id LIMIT :limit FOR UPDATE SKIP LOCKED" +
+                   "), permissions AS (" +
+                   "    DELETE FROM file_permission WHERE file_id IN (SELECT id FROM batch)" +
+                   "), purged AS (" +
+                   "    DELETE FROM file_info WHERE id IN (SELECT id FROM batch) RETURNING file_path, is_folder" +
+                   ") " +
+                   "SELECT CASE WHEN is_folder THEN NULL ELSE file_path END FROM purged",
+           nativeQuery = true)
+    List<String> purgeTrash(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+    
+    /**
+     * The file {@code :fileId} and the folders above it, nearest first
+     */
+    String ACCESS_CHAIN = "WITH RECURSIVE chain AS (" +
+                          "    SELECT f.id, f.parent_folder_id, f.owner_id, f.is_public, f.group_id, 0 AS depth " +
+                          "    FROM file_info f WHERE f.id = :fileId AND f.is_deleted = false " +
+                          "    UNION ALL " +
+                          "    SELECT p.id, p.parent_folder_id, p.owner_id, p.is_public, p.group_id, c.depth + 1 " +
+                          "    FROM file_info p JOIN chain c ON p.id = c.parent_folder_id " +
+                          "    WHERE p.is_deleted = false AND c.depth < :maxDepth" +
+                          ") ";
+    
+    /**
+     * Access level of {@code :userId} on the file row {@code t} of {@link #ACCESS_CHAIN}: 0 none,
+     * 1 read, 2 write, 3 owner. Ownership, public and group access come from the file itself;
+     * explicit grants come from the file and every folder above it, so sharing a folder
+     * shares its contents.
+     */
+    String ACCESS_LEVEL = "GREATEST(" +
+                          "    CASE WHEN t.owner_id = :userId THEN 3 " +
+                          "         WHEN t.is_public OR EXISTS (SELECT 1 FROM file_group_member m " +
+                          "                                     WHERE m.group_id = t.group_id AND m.user_id = :userId) THEN 1 " +
+                          "         ELSE 0 END, " +
+                          "    COALESCE((SELECT MAX(CASE p.permission_type WHEN 'OWNER' THEN 3 WHEN 'WRITE' THEN 2 ELSE 1 END) " +
+                          "              FROM file_permission p JOIN chain c ON p.file_id = c.id " +
+                          "              WHERE p.user_id = :userId AND p.is_deleted = false), 0)" +
+                          ")";
+    
+    /**
+     * Resolve the access level of a user to a file in one round trip
+     *
+     * @param fileId the file ID
+     * @param userId the user ID
+     * @param maxDepth the maximum number of folders to walk up
+     * @return the access level, or empty if the file does not exist
+     */
+    @Query(value = ACCESS_CHAIN + "SELECT " + ACCESS_LEVEL + " FROM chain t WHERE t.depth = 0",
+           nativeQuery = true)
+    Optional<Integer> resolveAccess(@Param("fileId") UUID fileId, @Param("userId") UUID userId,
+                                    @Param("maxDepth") int maxDepth);
+    
+    /**
+     * Load a file if a user holds at least the given access level on it, checking access
+     * and loading the row in the same round trip
+     *
+     * @param fileId the file ID
+     * @param userId the user ID
+     * @param minLevel the required access level
+     * @param maxDepth the maximum number of folders to walk up
+     * @return the file, or empty if it does not exist or the user lacks access
+     */
+    @Query(value = ACCESS_CHAIN +
+                   "SELECT f.* FROM file_info f JOIN chain t ON t.id = f.id AND t.depth = 0 " +
+                   "WHERE " + ACCESS_LEVEL + " >= :minLevel",
+           nativeQuery = true)
+    Optional<FileInfo> findAccessible(@Param("fileId") UUID fileId, @Param("userId") UUID userId,
+                                      @Param("minLevel") int minLevel, @Param("maxDepth") int maxDepth);
+    
+    /**
+     * Update the thumbnail status of a file
+     *
+     * @param id the file ID
+     * @param status the new status
+     * @param now the current time
+     * @return the number of updated rows
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileInfo f SET f.thumbnailStatus = :status, f.updatedAt = :now WHERE f.id = :id")
+    int updateThumbnailStatus(@Param("id") UUID id, @Param("status") ThumbnailStatus status, @Param("now") LocalDateTime now);
+    
+    /**
+     * Find files whose thumbnails have been pending for too long
+     *
+     * @param status the thumbnail status
+     * @param updatedBefore the staleness threshold
+     * @param pageable the maximum number of files
+     * @return list of files
+     */
+    List<FileInfo> findByThumbnailStatusAndUpdatedAtBeforeAndIsDeletedFalse(ThumbnailStatus status, LocalDateTime updatedBefore,
+                                                                             Pageable pageable);
+    
+    /**
+     * Filter shared by the search queries. An empty media type or folder ID means no restriction.
+     */
+    String SEARCH_FILTER = "f.owner_id = :ownerId AND f.is_deleted = false " +
+                           "AND (:mediaType = '' OR f.media_type = :mediaType) " +
+                           "AND (:folderId = '' OR f.parent_folder_id = CAST(NULLIF(:folderId, '') AS uuid)) ";
+    
+    /**
+     * Search files whose lower-cased name starts with a prefix, ordered by name
+     *
+     * @param ownerId the owner ID
+     * @param mediaType the media type, or empty for any
+     * @param folderId the parent folder ID, or empty for any
+     * @param pattern the escaped, lower-cased prefix followed by %
+     * @param afterName the name of the last hit of the previous page
+     * @param afterId the ID of the last hit of the previous page
+     * @param limit the maximum number of hits
+     * @return the matching hits
+     */
+    @Query(value = "SELECT f.id AS id, lower(f.original_name) AS name, CAST(0 AS float8) AS score FROM file_info f " +
+                   "WHERE " + SEARCH_FILTER +
+                   "AND lower(f.original_name) COLLATE \"C\" LIKE :pattern ESCAPE '\\' " +
+                   "AND (lower(f.original_name) COLLATE \"C\", f.id) > (CAST(:afterName AS text) COLLATE \"C\", CAST(:afterId AS uuid)) " +
+                   "ORDER BY lower(f.original_name) COLLATE \"C\", f.id LIMIT :limit",
+           nativeQuery = true)
+    List<SearchHitView> searchByPrefix(@Param("ownerId") UUID ownerId, @Param("mediaType") String mediaType,
+                                       @Param("folderId") String folderId, @Param("pattern") String pattern,
+                                       @Param("afterName") String afterName, @Param("afterId") String afterId,
+                                       @Param("limit") int limit);
+    
+    /**
+     * Count prefix matches, stopping at a cap
+     *
+     * @return the number of matches, at most cap
+     */
+    @Query(value = "SELECT count(*) FROM (SELECT 1 FROM file_info f WHERE " + SEARCH_FILTER +
+                   "AND lower(f.original_name) COLLATE \"C\" LIKE :pattern ESCAPE '\\' LIMIT :cap) c",
+           nativeQuery = true)
+    long countByPrefix(@Param("ownerId") UUID ownerId, @Param("mediaType") String mediaType,
+                       @Param("folderId") String folderId, @Param("pattern") String pattern, @Param("cap") int cap);
+    
+    /**
+     * Search files whose name is similar to a term using trigram similarity, best match first
+     *
+     * @param ownerId the owner ID
+     * @param mediaType the media type, or empty for any
+     * @param folderId the parent folder ID, or empty for any
+     * @param term the lower-cased search term
+     * @param afterScore the score of the last hit of the previous page
+     * @param afterId the ID of the last hit of the previous page
+     * @param limit the maximum number of hits
+     * @return the matching hits
+     */
+    @Query(value = "SELECT * FROM (" +
+                   "    SELECT f.id AS id, lower(f.original_name) AS name, " +
+                   "           CAST(similarity(lower(f.original_name), :term) AS float8) AS score " +
+                   "    FROM file_info f WHERE " + SEARCH_FILTER + "AND lower(f.original_name) % :term" +
+                   ") h " +
+                   "WHERE h.score < :afterScore OR (h.score = :afterScore AND h.id > CAST(:afterId AS uuid)) " +
+                   "ORDER BY h.score DESC, h.id LIMIT :limit",
+           nativeQuery = true)
+    List<SearchHitView> searchBySimilarity(@Param("ownerId") UUID ownerId, @Param("mediaType") String mediaType,
+                                           @Param("folderId") String folderId, @Param("term") String term,
+                                           @Param("afterScore") double afterScore, @Param("afterId") String afterId,
+                                           @Param("limit") int limit);
+    
+    /**
+     * Count trigram matches, stopping at a cap
+     *
+     * @return the number of matches, at most cap
+     */
+    @Query(value = "SELECT count(*) FROM (SELECT 1 FROM file_info f WHERE " + SEARCH_FILTER +
+                   "AND lower(f.original_name) % :term LIMIT :cap) c",
+           nativeQuery = true)
+    long countBySimilarity(@Param("ownerId") UUID ownerId, @Param("mediaType") String mediaType,
+                           @Param("folderId") String folderId, @Param("term") String term, @Param("cap") int cap);
+    
+    /**
+     * Full-text search over name, extension and media type, ranked by relevance
+     *
+     * @param ownerId the owner ID
+     * @param mediaType the media type, or empty for any
+     * @param folderId the parent folder ID, or empty for any
+     * @param tsQuery the text search query
+     * @param afterScore the score of the last hit of the previous page
+     * @param afterId the ID of the last hit of the previous page
+     * @param limit the maximum number of hits
+     * @return the matching hits
+     */
+    @Query(value = "SELECT * FROM (" +
+                   "    SELECT f.id AS id, lower(f.original_name) AS name, " +
+                   "           CAST(ts_rank(f.search_vector, to_tsquery('simple', :tsQuery)) AS float8) AS score " +
+                   "    FROM file_info f WHERE " + SEARCH_FILTER +
+                   "    AND f.search_vector @@ to_tsquery('simple', :tsQuery)" +
+                   ") h " +
+                   "WHERE h.score < :afterScore OR (h.score = :afterScore AND h.id > CAST(:afterId AS uuid)) " +
+                   "ORDER BY h.score DESC, h.id LIMIT :limit",
+           nativeQuery = true)
+    List<SearchHitView> searchByText(@Param("ownerId") UUID ownerId, @Param("mediaType") String mediaType,
+                                     @Param("folderId") String folderId, @Param("tsQuery") String tsQuery,
+                                     @Param("afterScore") double afterScore, @Param("afterId") String afterId,
+                                     @Param("limit") int limit);
+    
+    /**
+     * Count full-text matches, stopping at a cap
+     *
+     * @return the number of matches, at most cap
+     */
+    @Query(value = "SELECT count(*) FROM (SELECT 1 FROM file_info f WHERE " + SEARCH_FILTER +
+                   "AND f.search_vector @@ to_tsquery('simple', :tsQuery) LIMIT :cap) c",
+           nativeQuery = true)
+    long countByText(@Param("ownerId") UUID ownerId, @Param("mediaType") String mediaType,
+                     @Param("folderId") String folderId, @Param("tsQuery") String tsQuery, @Param("cap") int cap);
+}
@@ -0,0 +1,124 @@
+package com.example.file.repository;
+
+import com.example.file.entity.FileJob;
+import com.example.file.entity.FileJob.JobStatus;
+import com.example.file.entity.FileJob.JobType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for background file jobs
+ */
+@Repository
+public interface FileJobRepository extends JpaRepository<FileJob, UUID> {
+
+    /**
+     * Find jobs in the given statuses that have not reported progress since a point in time
+     *
+     * @param statuses the job statuses
+     * @param updatedBefore the heartbeat cutoff
+     * @return list of stale jobs
+     */
+    List<FileJob> findByStatusInAndUpdatedAtBefore(Collection<JobStatus> statuses, LocalDateTime updatedBefore);
+    
+    /**
+     * Find jobs of a type in a status that have been retried fewer than the given number of times
+     *
+     * @param jobType the job type
+     * @param status the job status
+     * @param maxAttempts the retry cap
+     * @return list of jobs
+     */
+    List<FileJob> findByJobTypeAndStatusAndAttemptsLessThan(JobType jobType, JobStatus status, int maxAttempts);
+    
+    /**
+     * Claim a job for execution. Only succeeds for pending jobs or running jobs whose
+     * worker stopped sending heartbeats, so two nodes never run the same job.
+     *
+     * @param id the job ID
+     * @param staleBefore the heartbeat cutoff for running jobs
+     * @param now the current time
+     * @return number of affected rows
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileJob j SET j.status = com.example.file.entity.FileJob.JobStatus.RUNNING, j.updatedAt = :now " +
+           "WHERE j.id = :id AND (j.status = com.example.file.entity.FileJob.JobStatus.PENDING " +
+           "OR (j.status = com.example.file.entity.FileJob.JobStatus.RUNNING AND j.updatedAt < :staleBefore))")
+    int claim(@Param("id") UUID id, @Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+    
+    /**
+     * Put a failed job back to pending for another attempt. Only succeeds while the job is
+     * below the retry cap and has been failed since before the backoff cutoff, so a failed
+     * job is requeued once per backoff period however many nodes try.
+     *
+     * @param id the job ID
+     * @param maxAttempts the retry cap
+     * @param failedBefore the backoff cutoff
+     * @param now the current time
+     * @return number of affected rows
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileJob j SET j.status = com.example.file.entity.FileJob.JobStatus.PENDING, j.attempts = j.attempts + 1, " +
+           "j.errorMessage = null, j.completedAt = null, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.status = com.example.file.entity.FileJob.JobStatus.FAILED " +
+           "AND j.attempts < :maxAttempts AND j.updatedAt < :failedBefore")
+    int requeueFailed(@Param("id") UUID id, @Param("maxAttempts") int maxAttempts,
+                      @Param("failedBefore") LocalDateTime failedBefore, @Param("now") LocalDateTime now);
+    
+    /**
+     * Record the total number of items a job has to process
+     *
+     * @param id the job ID
+     * @param totalItems the total number of items
+     * @param now the current time
+     * @return number of affected rows
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileJob j SET j.totalItems = :totalItems, j.updatedAt = :now WHERE j.id = :id")
+    int updateTotal(@Param("id") UUID id, @Param("totalItems") long totalItems, @Param("now") LocalDateTime now);
+    
+    /**
+     * Record the progress of a processed batch; doubles as the worker heartbeat
+     *
+     * @param id the job ID
+     * @param processed number of items processed in the batch
+     * @param failed number of items that failed in the batch
+     * @param cursor keyset position of the last item in the batch
+     * @param now the current time
+     * @return number of affected rows
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileJob j SET j.processedItems = j.processedItems + :processed, j.failedItems = j.failedItems + :failed, " +
+           "j.cursor = :cursor, j.updatedAt = :now WHERE j.id = :id")
+    int recordProgress(@Param("id") UUID id, @Param("processed") long processed, @Param("failed") long failed,
+                       @Param("cursor") String cursor, @Param("now") LocalDateTime now);
+    
+    /**
+     * Mark a job as finished
+     *
+     * @param id the job ID
+     * @param status the final status
+     * @param errorMessage the error message (optional)
+     * @param now the current time
+     * @return number of affected rows
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileJob j SET j.status = :status, j.errorMessage = :errorMessage, j.completedAt = :now, j.updatedAt = :now " +
+           "WHERE j.id = :id")
+    int finish(@Param("id") UUID id, @Param("status") JobStatus status, @Param("errorMessage") String errorMessage,
+               @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,22 @@
+package com.example.file.repository;
+
+/**
+ * Projection for aggregated folder statistics
+ */
+public interface FolderStatsView {
+
+    /**
+     * @return total size in bytes of all files below the folder
+     */
+    long getTotalSize();
+
+    /**
+     * @return number of files below the folder
+     */
+    long getFileCount();
+
+    /**
+     * @return number of folders below the folder
+     */
+    long getFolderCount();
+}
@@ -0,0 +1,24 @@
+package com.example.file.repository;
+
+import java.util.UUID;
+
+/**
+ * Projection for a single search hit and its sort keys
+ */
+public interface SearchHitView {
+
+    /**
+     * @return the file ID
+     */
+    UUID getId();
+
+    /**
+     * @return the lower-cased file name
+     */
+    String getName();
+
+    /**
+     * @return the relevance score, 0 for prefix matches
+     */
+    double getScore();
+}
@@ -0,0 +1,24 @@
+package com.example.file.repository;
+
+import java.util.UUID;
+
+/**
+ * Projection for stored bytes per owner and group
+ */
+public interface UsageView {
+
+    /**
+     * @return the owner ID
+     */
+    UUID getOwnerId();
+
+    /**
+     * @return the group ID, if any
+     */
+    UUID getGroupId();
+
+    /**
+     * @return the stored bytes
+     */
+    long getBytes();
+}
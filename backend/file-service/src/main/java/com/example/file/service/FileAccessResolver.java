@@ -0,0 +1,151 @@
+package com.example.file.service;
+
+import com.example.common.exception.ResourceNotFoundException;
+import com.example.file.entity.FileInfo;
+import com.example.file.entity.FilePermission.PermissionType;
+import com.example.file.repository.FileInfoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resolves the effective permission of a user on a file.
+ *
+ * Owner, public, group and explicit grants on the file or any folder above it are
+ * resolved with a single query. Results are kept in a short-lived, size-bounded local
+ * cache that evicts the least recently used entries and is invalidated when sharing or
+ * access settings change; the TTL bounds staleness across instances.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileAccessResolver {
+
+    private static final PermissionType[] LEVELS = {null, PermissionType.READ, PermissionType.WRITE, PermissionType.OWNER};
+
+    private final FileInfoRepository fileInfoRepository;
+
+    // Access-ordered, so the least recently used entry is evicted once the cache is full
+    private final Map<AccessKey, CachedAccess> cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<AccessKey, CachedAccess> eldest) {
+            return size() > cacheMaxEntries;
+        }
+    });
+
+    @Value("${file.access.cache-ttl-seconds:30}")
+    private long cacheTtlSeconds;
+
+    @Value("${file.access.cache-max-entries:10000}")
+    private int cacheMaxEntries;
+
+    @Value("${file.tree.max-depth:100}")
+    private int maxTreeDepth;
+
+    /**
+     * Resolve the effective permission of a user on a file
+     *
+     * @param fileId the file ID
+     * @param userId the user ID
+     * @return the highest permission the user holds, or null if the user has no access
+     * @throws ResourceNotFoundException if the file does not exist
+     */
+    public PermissionType resolve(UUID fileId, UUID userId) {
+        AccessKey key = new AccessKey(fileId, userId);
+        long now = System.currentTimeMillis();
+        
+        CachedAccess cached = cache.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.permission();
+        }
+        
+        int level = fileInfoRepository.resolveAccess(fileId, userId, maxTreeDepth)
+                .orElseThrow(() -> new ResourceNotFoundException("File", "id", fileId.toString()));
+        
+        PermissionType permission = LEVELS[level];
+        cache.put(key, new CachedAccess(permission, now + cacheTtlSeconds * 1000));
+        return permission;
+    }
+
+    /**
+     * Load a file the user holds at least the given permission on. Access is checked in
+     * the same query that loads the row, so this always reflects the current state.
+     *
+     * @param fileId the file ID
+     * @param userId the user ID
+     * @param permissionType the required permission
+     * @return the file
+     * @throws ResourceNotFoundException if the file does not exist or the user lacks the permission
+     */
+    public FileInfo findAccessible(UUID fileId, UUID userId, PermissionType permissionType) {
+        return fileInfoRepository.findAccessible(fileId, userId, permissionType.ordinal() + 1, maxTreeDepth)
+                .orElseThrow(() -> new ResourceNotFoundException("File", "id", fileId.toString()));
+    }
+
+    /**
+     * Check if a user holds at least the given permission on a file.
+     * Permissions are ordered READ, WRITE, OWNER; a higher permission implies the lower ones.
+     *
+     * @param fileId the file ID
+     * @param userId the user ID
+     * @param permissionType the required permission
+     * @return true if the user has the permission
+     */
+    public boolean hasPermission(UUID fileId, UUID userId, PermissionType permissionType) {
+        PermissionType permission = resolve(fileId, userId);
+        return permission != null && permission.ordinal() >= permissionType.ordinal();
+    }
+
+    /**
+     * Drop cached access for a file once the current transaction commits. Grants on a
+     * folder apply to everything below it, so changes to a folder drop the whole cache.
+     *
+     * @param fileId the file ID
+     * @param folder whether the file is a folder
+     */
+    public void invalidate(UUID fileId, boolean folder) {
+        Runnable evict = folder ? cache::clear : () -> cache.keySet().removeIf(key -> key.fileId().equals(fileId));
+        evict.run();
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Evict again after commit so a concurrent read cannot re-cache the old state
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Drop all cached access once the current transaction commits, for changes that
+     * affect many files at once such as group membership
+     */
+    public void invalidateAll() {
+        cache.clear();
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.clear();
+                }
+            });
+        }
+    }
+
+    private record AccessKey(UUID fileId, UUID userId) {
+    }
+
+    private record CachedAccess(PermissionType permission, long expiresAt) {
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.file.service;
+
+import com.example.common.exception.ResourceNotFoundException;
+import com.example.file.dto.FileJobDto;
+import com.example.file.entity.FileInfo;
+import com.example.file.entity.FileInfo.ThumbnailStatus;
+import com.example.file.entity.FileJob;
+import com.example.file.entity.FileJob.JobStatus;
+import com.example.file.entity.FileJob.JobType;
+import com.example.file.mapper.FileJobMapper;
+import com.example.file.repository.FileCopyView;
+import com.example.file.repository.FileInfoRepository;
+import com.example.file.repository.FileJobRepository;
+import com.example.file.storage.StorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service for copying whole folder trees.
+ *
+ * Objects are copied inside the storage backend, so no content passes through this
+ * service. The folder structure is copied with one set-based INSERT, then a background
+ * job walks the files in keyset batches, copies their objects and registers each batch
+ * with one INSERT. Copies get IDs derived from the job and the source, so an interrupted
+ * job resumes without duplicating anything.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileCopyService {
+
+    private static final String FIRST_ID = new UUID(0L, 0L).toString();
+
+    private final FileInfoRepository fileInfoRepository;
+    private final FileJobRepository fileJobRepository;
+    private final FileJobMapper fileJobMapper;
+    private final StorageService storageService;
+    private final ThreadPoolTaskExecutor fileJobExecutor;
+    private final ThumbnailService thumbnailService;
+    private final FolderStatsService folderStatsService;
+    private final QuotaService quotaService;
+
+    @Value("${file.copy-job.batch-size:500}")
+    private int batchSize;
+
+    @Value("${file.copy-job.stale-after-seconds:300}")
+    private long staleAfterSeconds;
+
+    @Value("${file.tree.max-depth:100}")
+    private int maxTreeDepth;
+
+    /**
+     * Schedule a copy of a folder subtree
+     *
+     * @param folder the folder to copy
+     * @param destination the folder to copy into, or null for the top level
+     * @param userId the user requesting the copy, who will own the copies
+     * @return the background job
+     */
+    @Transactional
+    public FileJobDto copyFolder(FileInfo folder, FileInfo destination, UUID userId) {
+        // Fail fast if the whole tree cannot fit; each batch reserves its own space as it goes
+        long totalSize = fileInfoRepository.findFolderStats(folder.getId()).getTotalSize();
+        quotaService.release(quotaService.reserve(userId, groupOf(destination), totalSize));
+        
+        FileJob job = FileJob.builder()
+                .jobType(JobType.FOLDER_COPY)
+                .status(JobStatus.PENDING)
+                .targetId(folder.getId())
+                .destinationId(destination != null ? destination.getId() : null)
+                .requestedBy(userId)
+                .build();
+        job = fileJobRepository.save(job);
+        
+        UUID jobId = job.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(jobId);
+            }
+        });
+        
+        return fileJobMapper.toDto(job);
+    }
+
+    /**
+     * Pick up copy jobs that were never started or whose worker died
+     */
+    @Scheduled(fixedDelayString = "${file.copy-job.resume-interval-ms:60000}")
+    public void resumeStaleJobs() {
+        LocalDateTime staleBefore = LocalDateTime.now().minusSeconds(staleAfterSeconds);
+        List<FileJob> staleJobs = fileJobRepository.findByStatusInAndUpdatedAtBefore(
+                List.of(JobStatus.PENDING, JobStatus.RUNNING), staleBefore);
+        
+        for (FileJob job : staleJobs) {
+            if (job.getJobType() == JobType.FOLDER_COPY) {
+                log.info("Resuming stale folder copy job {}", job.getId());
+                submit(job.getId());
+            }
+        }
+    }
+
+    /**
+     * Run a folder copy job to completion
+     *
+     * @param jobId the job ID
+     */
+    public void runJob(UUID jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (fileJobRepository.claim(jobId, now.minusSeconds(staleAfterSeconds), now) == 0) {
+            log.debug("Folder copy job {} is already running or finished", jobId);
+            return;
+        }
+        
+        FileJob job = fileJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Job", "id", jobId.toString()));
+        
+        try {
+            UUID rootId = job.getTargetId();
+            UUID destinationId = job.getDestinationId();
+            UUID ownerId = job.getRequestedBy();
+            UUID groupId = destinationId != null
+                    ? fileInfoRepository.findById(destinationId).map(FileInfo::getGroupId).orElse(null)
+                    : null;
+            String copyKey = jobId.toString();
+            String groupParam = groupId != null ? groupId.toString() : "";
+            
+            String cursor = job.getCursor();
+            if (cursor == null) {
+                int folders = fileInfoRepository.insertFolderCopies(rootId, copyKey,
+                        destinationId != null ? destinationId.toString() : "", ownerId, groupParam, maxTreeDepth);
+                folderStatsService.recordAdded(destinationId, 0, 0, folders);
+                
+                cursor = FIRST_ID;
+                fileJobRepository.updateTotal(jobId, fileInfoRepository.countSubtreeFiles(rootId, maxTreeDepth), LocalDateTime.now());
+                fileJobRepository.recordProgress(jobId, 0, 0, cursor, LocalDateTime.now());
+            }
+            
+            List<FileCopyView> batch = fileInfoRepository.findFileCopyBatch(rootId, copyKey, cursor, batchSize, maxTreeDepth);
+            while (!batch.isEmpty()) {
+                int failed = copyBatch(batch, copyKey, ownerId, groupId, groupParam, destinationId);
+                cursor = batch.get(batch.size() - 1).getSourceId().toString();
+                fileJobRepository.recordProgress(jobId, batch.size() - failed, failed, cursor, LocalDateTime.now());
+                
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                batch = fileInfoRepository.findFileCopyBatch(rootId, copyKey, cursor, batchSize, maxTreeDepth);
+            }
+            
+            // The copied folders were inserted empty; compute their aggregates from what was copied
+            UUID copyRootId = copyId(copyKey, rootId);
+            List<UUID> copiedFolderIds = new ArrayList<>();
+            copiedFolderIds.add(copyRootId);
+            fileInfoRepository.findSubtree(copyRootId, true, maxTreeDepth).forEach(copy -> copiedFolderIds.add(copy.getId()));
+            folderStatsService.reconcile(copiedFolderIds);
+            
+            fileJobRepository.finish(jobId, JobStatus.COMPLETED, null, LocalDateTime.now());
+            log.info("Folder copy job {} completed", jobId);
+        } catch (Exception e) {
+            log.error("Folder copy job {} failed: {}", jobId, e.getMessage(), e);
+            fileJobRepository.finish(jobId, JobStatus.FAILED, e.getMessage(), LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Copy the objects of a batch of files and register the copies
+     *
+     * @return the number of files that could not be copied
+     */
+    private int copyBatch(List<FileCopyView> batch, String copyKey, UUID ownerId, UUID groupId, String groupParam,
+                          UUID destinationId) {
+        long bytes = batch.stream().mapToLong(FileCopyView::getFileSize).sum();
+        String reservationId = quotaService.reserve(ownerId, groupId, bytes);
+        
+        try {
+            List<UUID> copied = new ArrayList<>();
+            List<UUID> withoutThumbnails = new ArrayList<>();
+            for (FileCopyView item : batch) {
+                try {
+                    storageService.copyFile(item.getSourcePath(), item.getTargetPath());
+                } catch (Exception e) {
+                    log.warn("Failed to copy object {}: {}", item.getSourcePath(), e.getMessage());
+                    continue;
+                }
+                copied.add(item.getSourceId());
+                if (item.getThumbnailReady() && !thumbnailService.copyDerivatives(item.getSourcePath(), item.getTargetPath())) {
+                    withoutThumbnails.add(item.getTargetId());
+                }
+            }
+            
+            List<Long> inserted = copied.isEmpty()
+                    ? List.of()
+                    : fileInfoRepository.insertFileCopies(copied, copyKey, ownerId, groupParam);
+            long insertedBytes = inserted.stream().mapToLong(Long::longValue).sum();
+            quotaService.commit(reservationId, insertedBytes);
+            folderStatsService.recordAdded(destinationId, insertedBytes, inserted.size(), 0);
+            
+            // Copies whose thumbnails could not be copied are regenerated by the thumbnail sweeper
+            for (UUID targetId : withoutThumbnails) {
+                fileInfoRepository.updateThumbnailStatus(targetId, ThumbnailStatus.PENDING, LocalDateTime.now());
+            }
+            
+            return batch.size() - copied.size();
+        } catch (RuntimeException e) {
+            quotaService.release(reservationId);
+            throw e;
+        }
+    }
+
+    /**
+     * Get the ID a copy job gives the copy of a source row, matching {@link FileInfoRepository#COPY_ID}
+     */
+    private UUID copyId(String copyKey, UUID sourceId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest((copyKey + sourceId).getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            return new UUID(buffer.getLong(), buffer.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get the group copies made into a destination folder belong to
+     */
+    private UUID groupOf(FileInfo destination) {
+        return destination != null ? destination.getGroupId() : null;
+    }
+
+    /**
+     * Hand a job to the executor. If the executor is saturated the job stays pending
+     * and is picked up by {@link #resumeStaleJobs()}.
+     *
+     * @param jobId the job ID
+     */
+    private void submit(UUID jobId) {
+        try {
+            fileJobExecutor.execute(() -> runJob(jobId));
+        } catch (TaskRejectedException e) {
+            log.warn("Job executor is saturated, folder copy job {} will be resumed later", jobId);
+        }
+    }
+}
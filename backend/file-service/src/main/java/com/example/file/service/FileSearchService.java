@@ -0,0 +1,203 @@
+package com.example.file.service;
+
+import com.example.common.exception.BusinessException;
+import com.example.file.dto.FileInfoDto;
+import com.example.file.dto.FileSearchResultDto;
+import com.example.file.entity.FileInfo;
+import com.example.file.mapper.FileInfoMapper;
+import com.example.file.repository.FileInfoRepository;
+import com.example.file.repository.SearchHitView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service for searching files by name.
+ *
+ * Every mode is served by an index: prefix search by a "C"-collated name index, fuzzy
+ * search by a trigram index and ranked search by a full-text index over name,
+ * extension and media type. Results are paged with an opaque keyset cursor, and the
+ * total is only counted on the first page, stopping at a configurable cap.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileSearchService {
+
+    private static final String FIRST_ID = new UUID(0L, 0L).toString();
+
+    private final FileInfoRepository fileInfoRepository;
+    private final FileInfoMapper fileInfoMapper;
+
+    @Value("${file.search.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${file.search.count-cap:1000}")
+    private int countCap;
+
+    /**
+     * Search modes
+     */
+    public enum Mode {
+        PREFIX, FUZZY, RANKED
+    }
+
+    /**
+     * Search the files of an owner
+     *
+     * @param query the search query
+     * @param mode the search mode
+     * @param mediaType the media type (optional)
+     * @param folderId the parent folder ID (optional)
+     * @param ownerId the owner ID
+     * @param cursor the cursor returned with the previous page (optional)
+     * @param size the page size
+     * @return the search results
+     */
+    @Transactional(readOnly = true)
+    public FileSearchResultDto search(String query, Mode mode, String mediaType, UUID folderId, UUID ownerId,
+                                      String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, maxPageSize));
+        String mediaFilter = mediaType != null ? mediaType.toLowerCase(Locale.ROOT) : "";
+        String folderFilter = folderId != null ? folderId.toString() : "";
+        String[] after = decodeCursor(cursor, mode);
+        boolean firstPage = after == null;
+        
+        String term = query != null ? query.trim().toLowerCase(Locale.ROOT) : "";
+        if (term.isEmpty()) {
+            return FileSearchResultDto.builder().items(List.of()).totalCount(0L).totalCountExact(true).build();
+        }
+        
+        List<SearchHitView> hits;
+        Long total = null;
+        switch (mode) {
+            case PREFIX -> {
+                String pattern = escapeLike(term) + "%";
+                hits = fileInfoRepository.searchByPrefix(ownerId, mediaFilter, folderFilter, pattern,
+                        firstPage ? "" : after[0], firstPage ? FIRST_ID : after[1], limit + 1);
+                if (firstPage) {
+                    total = fileInfoRepository.countByPrefix(ownerId, mediaFilter, folderFilter, pattern, countCap);
+                }
+            }
+            case FUZZY -> {
+                hits = fileInfoRepository.searchBySimilarity(ownerId, mediaFilter, folderFilter, term,
+                        afterScore(after), firstPage ? FIRST_ID : after[1], limit + 1);
+                if (firstPage) {
+                    total = fileInfoRepository.countBySimilarity(ownerId, mediaFilter, folderFilter, term, countCap);
+                }
+            }
+            default -> {
+                String tsQuery = toPrefixTsQuery(term);
+                if (tsQuery.isEmpty()) {
+                    return FileSearchResultDto.builder().items(List.of()).totalCount(0L).totalCountExact(true).build();
+                }
+                hits = fileInfoRepository.searchByText(ownerId, mediaFilter, folderFilter, tsQuery,
+                        afterScore(after), firstPage ? FIRST_ID : after[1], limit + 1);
+                if (firstPage) {
+                    total = fileInfoRepository.countByText(ownerId, mediaFilter, folderFilter, tsQuery, countCap);
+                }
+            }
+        }
+        
+        String nextCursor = null;
+        if (hits.size() > limit) {
+            hits = hits.subList(0, limit);
+            nextCursor = encodeCursor(mode, hits.get(limit - 1));
+        }
+        
+        return FileSearchResultDto.builder()
+                .items(loadInOrder(hits))
+                .nextCursor(nextCursor)
+                .totalCount(total)
+                .totalCountExact(total != null && total < countCap)
+                .build();
+    }
+
+    /**
+     * Load the files of a page of hits, keeping the hit order
+     */
+    private List<FileInfoDto> loadInOrder(List<SearchHitView> hits) {
+        List<UUID> ids = hits.stream().map(SearchHitView::getId).collect(Collectors.toList());
+        Map<UUID, FileInfo> files = fileInfoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(FileInfo::getId, Function.identity()));
+        
+        return ids.stream()
+                .map(files::get)
+                .filter(Objects::nonNull)
+                .map(fileInfoMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Build a text search query matching every word of the input as a prefix
+     */
+    private String toPrefixTsQuery(String term) {
+        return Arrays.stream(term.split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .map(token -> token + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    /**
+     * Escape LIKE wildcards in user input
+     */
+    private String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private double afterScore(String[] after) {
+        return after == null ? Double.MAX_VALUE : Double.parseDouble(after[0]);
+    }
+
+    /**
+     * Encode the sort key of the last hit as an opaque cursor
+     */
+    private String encodeCursor(Mode mode, SearchHitView last) {
+        String key = mode == Mode.PREFIX ? last.getName() : Double.toString(last.getScore());
+        String raw = mode.name() + "\n" + key + "\n" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor into its sort key and ID
+     *
+     * @return the sort key and ID, or null for the first page
+     */
+    private String[] decodeCursor(String cursor, Mode mode) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf('\n');
+            int last = raw.lastIndexOf('\n');
+            if (first < 0 || first == last || !raw.substring(0, first).equals(mode.name())) {
+                throw new BusinessException("Invalid search cursor");
+            }
+            
+            String key = raw.substring(first + 1, last);
+            String id = raw.substring(last + 1);
+            if (mode != Mode.PREFIX) {
+                Double.parseDouble(key);
+            }
+            UUID.fromString(id);
+            return new String[] {key, id};
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Invalid search cursor");
+        }
+    }
+}
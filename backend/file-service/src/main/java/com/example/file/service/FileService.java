@@ -5,31 +5,53 @@ import com.example.common.exception.BusinessException;
 import com.example.common.exception.ResourceNotFoundException;
 import com.example.file.client.NotificationServiceClient;
 import com.example.file.client.UserServiceClient;
+import com.example.file.dto.BulkUploadResultDto;
+import com.example.file.dto.CompleteUploadRequest;
 import com.example.file.dto.FileInfoDto;
+import com.example.file.dto.FileJobDto;
+import com.example.file.dto.FolderStatsDto;
+import com.example.file.dto.PresignedUploadRequest;
+import com.example.file.dto.PresignedUrlDto;
+import com.example.file.dto.QuotaDto;
 import com.example.file.entity.FileInfo;
+import com.example.file.entity.FileInfo.ThumbnailStatus;
 import com.example.file.entity.FilePermission;
 import com.example.file.entity.FilePermission.PermissionType;
 import com.example.file.mapper.FileInfoMapper;
 import com.example.file.repository.FileInfoRepository;
 import com.example.file.repository.FilePermissionRepository;
+import com.example.file.storage.StorageService;
+import com.example.file.storage.StoredObject;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 /**
@@ -42,10 +64,38 @@ public class FileService {
 
     private final FileInfoRepository fileInfoRepository;
     private final FilePermissionRepository filePermissionRepository;
-    private final MinioService minioService;
+    private final StorageService storageService;
     private final FileInfoMapper fileInfoMapper;
     private final UserServiceClient userServiceClient;
     private final NotificationServiceClient notificationServiceClient;
+    private final FolderDeletionService folderDeletionService;
+    private final FileAccessResolver fileAccessResolver;
+    private final ZipDownloadService zipDownloadService;
+    private final ThumbnailService thumbnailService;
+    private final FolderStatsService folderStatsService;
+    private final QuotaService quotaService;
+    private final FileCopyService fileCopyService;
+    private final ThreadPoolTaskExecutor bulkUploadExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+
+    @Value("${file.tree.max-depth:100}")
+    private int maxTreeDepth;
+
+    @Value("${file.bulk-upload.max-files:1000}")
+    private int bulkUploadMaxFiles;
+
+    @Value("${file.bulk-upload.insert-batch-size:100}")
+    private int bulkInsertBatchSize;
+
+    /**
+     * A file opened for download
+     *
+     * @param fileInfo the file information
+     * @param content the file content
+     */
+    public record FileDownload(FileInfoDto fileInfo, InputStream content) {
+    }
 
     /**
      * Upload a file
@@ -59,50 +109,186 @@ public class FileService {
      */
     @Transactional
     public FileInfoDto uploadFile(MultipartFile file, UUID ownerId, UUID parentFolderId, boolean isPublic, UUID groupId) {
+        // Reserve the space before any bytes are streamed
+        String reservationId = quotaService.reserve(ownerId, groupId, file.getSize());
+        
         try {
             // Generate a unique object name for MinIO
             String objectName = generateObjectName(file.getOriginalFilename());
             
             // Upload file to MinIO
-            minioService.uploadFile(file, objectName);
-            
-            // Extract file extension
-            String originalFilename = file.getOriginalFilename();
-            String extension = "";
-            if (originalFilename != null && originalFilename.contains(".")) {
-                extension = originalFilename.substring(originalFilename.lastIndexOf(".") + 1).toLowerCase();
-            }
-            
-            // Extract media type (first part of content type)
-            String contentType = file.getContentType();
-            String mediaType = "";
-            if (contentType != null && contentType.contains("/")) {
-                mediaType = contentType.substring(0, contentType.indexOf("/"));
-            }
+            storageService.uploadFile(file, objectName);
             
             // Create file info in database
-            FileInfo fileInfo = FileInfo.builder()
-                    .originalName(originalFilename)
-                    .filePath(objectName)
-                    .fileSize(file.getSize())
-                    .contentType(contentType)
-                    .mediaType(mediaType)
-                    .extension(extension)
-                    .isFolder(false)
-                    .parentFolderId(parentFolderId)
-                    .ownerId(ownerId)
-                    .groupId(groupId)
-                    .isPublic(isPublic)
-                    .build();
+            FileInfo fileInfo = newFileInfo(file, objectName, ownerId, parentFolderId, isPublic, groupId);
             
             FileInfo savedFileInfo = fileInfoRepository.save(fileInfo);
+            folderStatsService.recordAdded(savedFileInfo);
+            thumbnailService.requestThumbnails(savedFileInfo);
+            quotaService.settleAfterTransaction(reservationId, file.getSize());
             return fileInfoMapper.toDto(savedFileInfo);
         } catch (Exception e) {
+            quotaService.release(reservationId);
             log.error("Error uploading file: {}", e.getMessage(), e);
             throw new BusinessException("Error uploading file: " + e.getMessage());
         }
     }
 
+    /**
+     * Upload many files in one request. Files are sent to storage with bounded parallelism
+     * and registered together in one transaction with batched inserts. A file that fails
+     * to upload does not fail the others.
+     *
+     * @param files the files to upload
+     * @param ownerId the owner ID
+     * @param parentFolderId the parent folder ID (optional)
+     * @param isPublic whether the files are public
+     * @param groupId the group ID (optional)
+     * @return one result per file, in request order
+     */
+    public List<BulkUploadResultDto> uploadFiles(List<MultipartFile> files, UUID ownerId, UUID parentFolderId,
+                                                 boolean isPublic, UUID groupId) {
+        if (files.size() > bulkUploadMaxFiles) {
+            throw new BusinessException("At most " + bulkUploadMaxFiles + " files can be uploaded at once");
+        }
+        checkUploadTarget(parentFolderId, ownerId);
+        
+        // Reserve the space for the whole request before any bytes are streamed
+        long totalSize = files.stream().mapToLong(MultipartFile::getSize).sum();
+        String reservationId = quotaService.reserve(ownerId, groupId, totalSize);
+        
+        List<CompletableFuture<String>> uploads = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> {
+                    String objectName = generateObjectName(file.getOriginalFilename());
+                    return storageService.uploadFile(file, objectName);
+                }, bulkUploadExecutor))
+                .collect(Collectors.toList());
+        
+        BulkUploadResultDto[] results = new BulkUploadResultDto[files.size()];
+        List<FileInfo> uploaded = new ArrayList<>();
+        List<Integer> uploadedIndexes = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            try {
+                String objectName = uploads.get(i).join();
+                uploaded.add(newFileInfo(file, objectName, ownerId, parentFolderId, isPublic, groupId));
+                uploadedIndexes.add(i);
+            } catch (CompletionException e) {
+                log.warn("Error uploading file {}: {}", file.getOriginalFilename(), e.getCause().getMessage());
+                results[i] = BulkUploadResultDto.failure(file.getOriginalFilename(), "Error uploading file: " + e.getCause().getMessage());
+            }
+        }
+        
+        List<FileInfo> saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(bulkInsertBatchSize);
+                List<FileInfo> savedFiles = fileInfoRepository.saveAll(uploaded);
+                
+                long storedBytes = savedFiles.stream().mapToLong(FileInfo::getFileSize).sum();
+                folderStatsService.recordAdded(parentFolderId, storedBytes, savedFiles.size(), 0);
+                savedFiles.forEach(thumbnailService::requestThumbnails);
+                quotaService.settleAfterTransaction(reservationId, storedBytes);
+                return savedFiles;
+            });
+        } catch (RuntimeException e) {
+            quotaService.release(reservationId);
+            storageService.deleteFiles(uploaded.stream().map(FileInfo::getFilePath).collect(Collectors.toList()));
+            log.error("Error registering uploaded files: {}", e.getMessage(), e);
+            throw new BusinessException("Error uploading files: " + e.getMessage());
+        }
+        
+        for (int i = 0; i < saved.size(); i++) {
+            int index = uploadedIndexes.get(i);
+            results[index] = BulkUploadResultDto.success(files.get(index).getOriginalFilename(), fileInfoMapper.toDto(saved.get(i)));
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Start a direct-to-storage upload. The client PUTs the bytes to the returned URL
+     * and then calls {@link #completePresignedUpload} to register the file.
+     *
+     * @param request the upload request
+     * @param ownerId the owner ID
+     * @return the presigned upload URL
+     */
+    public PresignedUrlDto createPresignedUpload(PresignedUploadRequest request, UUID ownerId) {
+        checkUploadTarget(request.getParentFolderId(), ownerId);
+        
+        // Get the URL before reserving, so an unsupported backend leaves no reservation behind
+        String objectName = generateObjectName(request.getFileName());
+        String url = storageService.getPresignedUploadUrl(objectName)
+                .orElseThrow(FileService::directTransfersUnsupported);
+        String reservationId = quotaService.reserve(ownerId, request.getGroupId(), request.getFileSize(), objectName);
+        
+        return PresignedUrlDto.builder()
+                .url(url)
+                .method("PUT")
+                .objectName(objectName)
+                .reservationId(reservationId)
+                .expiresAt(LocalDateTime.now().plusSeconds(storageService.getPresignedUrlExpirySeconds()))
+                .build();
+    }
+
+    /**
+     * Register a file whose bytes were uploaded through a presigned URL
+     *
+     * @param request the completion request
+     * @param ownerId the owner ID
+     * @return the file information
+     */
+    @Transactional
+    public FileInfoDto completePresignedUpload(CompleteUploadRequest request, UUID ownerId) {
+        checkUploadTarget(request.getParentFolderId(), ownerId);
+        
+        if (fileInfoRepository.existsByFilePath(request.getObjectName())) {
+            throw new BusinessException("Upload has already been completed: " + request.getObjectName());
+        }
+        
+        // Only the caller that started the upload may complete it, and only for that object
+        Long reservedBytes = quotaService.getReservedBytes(request.getReservationId(), ownerId,
+                request.getGroupId(), request.getObjectName());
+        if (reservedBytes == null) {
+            throw new BusinessException("Upload reservation not found or expired: " + request.getReservationId());
+        }
+        
+        // Trust what is actually stored, not what the client declared up front
+        StoredObject stat = storageService.statFile(request.getObjectName());
+        if (stat == null) {
+            throw new BusinessException("Uploaded object not found: " + request.getObjectName());
+        }
+        
+        // The presigned URL does not bind the length, so hold the client to what it reserved
+        if (stat.size() > reservedBytes) {
+            storageService.deleteFile(request.getObjectName());
+            quotaService.release(request.getReservationId());
+            throw new BusinessException("QUOTA_EXCEEDED", "Uploaded object is larger than the reserved space");
+        }
+        
+        FileInfo fileInfo = FileInfo.builder()
+                .originalName(request.getFileName())
+                .filePath(request.getObjectName())
+                .fileSize(stat.size())
+                .contentType(stat.contentType())
+                .mediaType(extractMediaType(stat.contentType()))
+                .extension(extractExtension(request.getFileName()))
+                .isFolder(false)
+                .parentFolderId(request.getParentFolderId())
+                .ownerId(ownerId)
+                .groupId(request.getGroupId())
+                .isPublic(request.isPublic())
+                .thumbnailStatus(thumbnailService.initialStatus(
+                        extractMediaType(stat.contentType()), extractExtension(request.getFileName())))
+                .build();
+        
+        FileInfo savedFileInfo = fileInfoRepository.save(fileInfo);
+        folderStatsService.recordAdded(savedFileInfo);
+        thumbnailService.requestThumbnails(savedFileInfo);
+        quotaService.settleAfterTransaction(request.getReservationId(), stat.size());
+        return fileInfoMapper.toDto(savedFileInfo);
+    }
+
     /**
      * Create a folder
      *
@@ -129,24 +315,90 @@ public class FileService {
                 .build();
         
         FileInfo savedFolderInfo = fileInfoRepository.save(folderInfo);
+        folderStatsService.recordAdded(savedFolderInfo);
         return fileInfoMapper.toDto(savedFolderInfo);
     }
 
     /**
-     * Download a file
+     * Download a file. The file and its access are resolved once and the content is
+     * streamed from the loaded row.
      *
      * @param fileId the file ID
      * @param userId the user ID
-     * @return the file input stream
+     * @return the file information and input stream
      */
-    public InputStream downloadFile(UUID fileId, UUID userId) {
+    public FileDownload downloadFile(UUID fileId, UUID userId) {
         FileInfo fileInfo = findFileWithAccessCheck(fileId, userId);
         
         if (fileInfo.isFolder()) {
             throw new BusinessException("Cannot download a folder");
         }
         
-        return minioService.downloadFile(fileInfo.getFilePath());
+        return new FileDownload(fileInfoMapper.toDto(fileInfo), storageService.downloadFile(fileInfo.getFilePath()));
+    }
+
+    /**
+     * Download a thumbnail or preview of an image
+     *
+     * @param fileId the file ID
+     * @param userId the user ID
+     * @param variant the derivative variant
+     * @return the JPEG input stream
+     */
+    public InputStream downloadThumbnail(UUID fileId, UUID userId, ThumbnailService.Variant variant) {
+        FileInfo fileInfo = findFileWithAccessCheck(fileId, userId);
+        
+        if (fileInfo.getThumbnailStatus() != ThumbnailStatus.READY) {
+            throw new ResourceNotFoundException("Thumbnail", "fileId", fileId.toString());
+        }
+        
+        return storageService.downloadFile(thumbnailService.derivativeName(fileInfo.getFilePath(), variant));
+    }
+
+    /**
+     * Plan a ZIP download of files and folders
+     *
+     * @param fileIds the selected file and folder IDs
+     * @param userId the user ID
+     * @param archiveName the archive name (optional)
+     * @return the archive plan
+     */
+    public ZipDownloadService.ZipPlan prepareZipDownload(List<UUID> fileIds, UUID userId, String archiveName) {
+        List<FileInfo> roots = fileIds.stream()
+                .distinct()
+                .map(fileId -> findFileWithAccessCheck(fileId, userId))
+                .collect(Collectors.toList());
+        
+        return zipDownloadService.plan(roots, archiveName);
+    }
+
+    /**
+     * Get a presigned URL to download a file directly from storage
+     *
+     * @param fileId the file ID
+     * @param userId the user ID
+     * @return the presigned download URL
+     */
+    public PresignedUrlDto getPresignedDownloadUrl(UUID fileId, UUID userId) {
+        FileInfo fileInfo = findFileWithAccessCheck(fileId, userId);
+        
+        if (fileInfo.isFolder()) {
+            throw new BusinessException("Cannot download a folder");
+        }
+        
+        String contentDisposition = ContentDisposition.attachment()
+                .filename(fileInfo.getOriginalName(), StandardCharsets.UTF_8)
+                .build()
+                .toString();
+        String url = storageService.getPresignedDownloadUrl(fileInfo.getFilePath(), contentDisposition)
+                .orElseThrow(FileService::directTransfersUnsupported);
+        
+        return PresignedUrlDto.builder()
+                .url(url)
+                .method("GET")
+                .objectName(fileInfo.getFilePath())
+                .expiresAt(LocalDateTime.now().plusSeconds(storageService.getPresignedUrlExpirySeconds()))
+                .build();
     }
 
     /**
@@ -161,24 +413,184 @@ public class FileService {
         FileInfo fileInfo = findFileWithAccessCheck(fileId, userId);
         
         if (fileInfo.isFolder()) {
-            // Delete all files in the folder
-            List<FileInfo> filesInFolder = fileInfoRepository.findByParentFolderIdAndIsDeletedFalse(fileId);
-            for (FileInfo file : filesInFolder) {
-                deleteFile(file.getId(), userId);
-            }
-        } else {
-            // Delete file from MinIO
-            minioService.deleteFile(fileInfo.getFilePath());
+            // Soft delete the whole subtree and remove its objects in the background
+            folderDeletionService.deleteFolder(fileInfo, userId);
+            return true;
+        }
+        
+        // Delete file and its thumbnails from MinIO
+        storageService.deleteFile(fileInfo.getFilePath());
+        if (fileInfo.getThumbnailStatus() != ThumbnailStatus.NONE) {
+            storageService.deleteFiles(thumbnailService.derivativeNames(fileInfo.getFilePath()));
         }
         
-        // Soft delete in database
+        // Soft delete in database; the row stays in the trash until it is purged
+        LocalDateTime now = LocalDateTime.now();
         fileInfo.setDeleted(true);
-        fileInfo.setUpdatedAt(LocalDateTime.now());
+        fileInfo.setDeletedAt(now);
+        fileInfo.setUpdatedAt(now);
         fileInfoRepository.save(fileInfo);
+        folderStatsService.recordRemoved(fileInfo);
+        quotaService.releaseUsageAfterCommit(fileInfo.getOwnerId(), fileInfo.getGroupId(), fileInfo.getFileSize());
         
         return true;
     }
 
+    /**
+     * Delete a folder and everything below it
+     *
+     * @param folderId the folder ID
+     * @param userId the user ID
+     * @return the background job removing the folder's objects
+     */
+    @Transactional
+    public FileJobDto deleteFolder(UUID folderId, UUID userId) {
+        FileInfo folder = findFileWithAccessCheck(folderId, userId);
+        
+        if (!folder.isFolder()) {
+            throw new BusinessException("Not a folder: " + folderId);
+        }
+        
+        return folderDeletionService.deleteFolder(folder, userId);
+    }
+
+    /**
+     * Get a background file job
+     *
+     * @param jobId the job ID
+     * @param userId the user ID
+     * @return the job
+     */
+    public FileJobDto getJob(UUID jobId, UUID userId) {
+        return folderDeletionService.getJob(jobId, userId);
+    }
+
+    /**
+     * Move a file or folder into another folder. Folders keep their contents, so moving
+     * a whole subtree only changes the parent of its root.
+     *
+     * @param fileId the file or folder ID
+     * @param userId the user ID
+     * @param targetFolderId the target folder ID, or null for the top level
+     * @return the moved file information
+     */
+    @Transactional
+    public FileInfoDto moveFile(UUID fileId, UUID userId, UUID targetFolderId) {
+        FileInfo fileInfo = findFileWithAccessCheck(fileId, userId);
+        checkUploadTarget(targetFolderId, userId);
+        
+        return fileInfoMapper.toDto(move(fileInfo, targetFolderId));
+    }
+
+    /**
+     * Rename or move a folder
+     *
+     * @param folderId the folder ID
+     * @param userId the user ID
+     * @param newName the new name (optional)
+     * @param newParentId the new parent folder ID (optional)
+     * @return the updated folder information
+     */
+    @Transactional
+    public FileInfoDto updateFolder(UUID folderId, UUID userId, String newName, UUID newParentId) {
+        FileInfo folder = findFileWithAccessCheck(folderId, userId);
+        
+        if (!folder.isFolder()) {
+            throw new BusinessException("Not a folder: " + folderId);
+        }
+        
+        if (newName != null && !newName.isBlank()) {
+            folder.setOriginalName(newName);
+            folder.setUpdatedAt(LocalDateTime.now());
+            folder = fileInfoRepository.save(folder);
+        }
+        
+        if (newParentId != null) {
+            checkUploadTarget(newParentId, userId);
+            folder = move(folder, newParentId);
+        }
+        
+        return fileInfoMapper.toDto(folder);
+    }
+
+    /**
+     * Copy a file into a folder. The content is copied inside the storage backend.
+     *
+     * @param fileId the file ID
+     * @param userId the user ID, who will own the copy
+     * @param targetFolderId the target folder ID, or null for the top level
+     * @return the copied file information
+     */
+    @Transactional
+    public FileInfoDto copyFile(UUID fileId, UUID userId, UUID targetFolderId) {
+        FileInfo source = findFileWithAccessCheck(fileId, userId);
+        
+        if (source.isFolder()) {
+            throw new BusinessException("Use the folder copy to copy a folder: " + fileId);
+        }
+        checkUploadTarget(targetFolderId, userId);
+        FileInfo targetFolder = findTargetFolder(targetFolderId);
+        UUID groupId = targetFolder != null ? targetFolder.getGroupId() : null;
+        
+        String reservationId = quotaService.reserve(userId, groupId, source.getFileSize());
+        try {
+            String objectName = generateObjectName(source.getOriginalName());
+            storageService.copyFile(source.getFilePath(), objectName);
+            
+            ThumbnailStatus thumbnailStatus = source.getThumbnailStatus();
+            if (thumbnailStatus == ThumbnailStatus.READY && !thumbnailService.copyDerivatives(source.getFilePath(), objectName)) {
+                thumbnailStatus = ThumbnailStatus.PENDING;
+            }
+            
+            FileInfo copy = FileInfo.builder()
+                    .originalName(source.getOriginalName())
+                    .filePath(objectName)
+                    .fileSize(source.getFileSize())
+                    .contentType(source.getContentType())
+                    .mediaType(source.getMediaType())
+                    .extension(source.getExtension())
+                    .isFolder(false)
+                    .parentFolderId(targetFolderId)
+                    .ownerId(userId)
+                    .groupId(groupId)
+                    .isPublic(source.isPublic())
+                    .accessPermissions(source.getAccessPermissions())
+                    .thumbnailStatus(thumbnailStatus)
+                    .build();
+            
+            FileInfo savedCopy = fileInfoRepository.save(copy);
+            folderStatsService.recordAdded(savedCopy);
+            thumbnailService.requestThumbnails(savedCopy);
+            quotaService.settleAfterTransaction(reservationId, source.getFileSize());
+            return fileInfoMapper.toDto(savedCopy);
+        } catch (RuntimeException e) {
+            quotaService.release(reservationId);
+            throw e;
+        }
+    }
+
+    /**
+     * Copy a folder and everything below it into another folder
+     *
+     * @param folderId the folder ID
+     * @param userId the user ID, who will own the copies
+     * @param targetFolderId the target folder ID, or null for the top level
+     * @return the background job copying the folder's contents
+     */
+    @Transactional
+    public FileJobDto copyFolder(UUID folderId, UUID userId, UUID targetFolderId) {
+        FileInfo folder = findFileWithAccessCheck(folderId, userId);
+        
+        if (!folder.isFolder()) {
+            throw new BusinessException("Not a folder: " + folderId);
+        }
+        checkUploadTarget(targetFolderId, userId);
+        FileInfo targetFolder = findTargetFolder(targetFolderId);
+        checkNotInsideItself(folder, targetFolderId);
+        
+        return fileCopyService.copyFolder(folder, targetFolder, userId);
+    }
+
     /**
      * Get files by owner ID
      *
@@ -206,34 +618,90 @@ public class FileService {
     }
 
     /**
-     * Get files by group ID
+     * Get files in a folder
      *
-     * @param groupId the group ID
+     * @param folderId the folder ID
      * @param page the page number
      * @param size the page size
      * @return page of files
      */
-    public PageDto<FileInfoDto> getFilesByGroup(UUID groupId, int page, int size) {
+    public PageDto<FileInfoDto> getFilesByParentFolder(UUID folderId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<FileInfo> filePage = fileInfoRepository.findByGroupIdAndIsDeletedFalse(groupId, pageable);
+        Page<FileInfo> filePage = fileInfoRepository.findByParentFolderIdAndIsDeletedFalse(folderId, pageable);
         
         List<FileInfoDto> fileDtos = filePage.getContent().stream()
                 .map(fileInfoMapper::toDto)
                 .collect(Collectors.toList());
         
-        return PageDto.of(fileDtos, filePage.getTotalElements(), filePage.getTotalPages(), page, size);
+        return PageDto.of(fileDtos, filePage.getTotalElements(), page, size);
     }
 
     /**
-     * Get public files
+     * Get all folders below a folder
      *
+     * @param folderId the folder ID
+     * @return the folders, ordered by depth and name
+     */
+    public List<FileInfoDto> getFolderTree(UUID folderId) {
+        return fileInfoRepository.findSubtree(folderId, true, maxTreeDepth).stream()
+                .map(fileInfoMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the breadcrumb trail of a file or folder
+     *
+     * @param fileId the file ID
+     * @param userId the user ID
+     * @return the ancestor folders, root first
+     */
+    public List<FileInfoDto> getBreadcrumbs(UUID fileId, UUID userId) {
+        findFileWithAccessCheck(fileId, userId);
+        
+        return fileInfoRepository.findAncestors(fileId).stream()
+                .map(fileInfoMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the total size and item counts of a folder
+     *
+     * @param folderId the folder ID
+     * @param userId the user ID
+     * @return the folder statistics
+     */
+    public FolderStatsDto getFolderStats(UUID folderId, UUID userId) {
+        FileInfo folder = findFileWithAccessCheck(folderId, userId);
+        
+        if (!folder.isFolder()) {
+            throw new BusinessException("Not a folder: " + folderId);
+        }
+        
+        return folderStatsService.getFolderStats(folderId);
+    }
+
+    /**
+     * Get the storage usage of an owner or one of their groups
+     *
+     * @param ownerId the owner ID
+     * @param groupId the group ID (optional)
+     * @return the usage and limit
+     */
+    public QuotaDto getQuota(UUID ownerId, UUID groupId) {
+        return groupId != null ? quotaService.getGroupQuota(groupId) : quotaService.getOwnerQuota(ownerId);
+    }
+
+    /**
+     * Get files by group ID
+     *
+     * @param groupId the group ID
      * @param page the page number
      * @param size the page size
      * @return page of files
      */
-    public PageDto<FileInfoDto> getPublicFiles(int page, int size) {
+    public PageDto<FileInfoDto> getFilesByGroup(UUID groupId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<FileInfo> filePage = fileInfoRepository.findByIsPublicTrueAndIsDeletedFalse(pageable);
+        Page<FileInfo> filePage = fileInfoRepository.findByGroupIdAndIsDeletedFalse(groupId, pageable);
         
         List<FileInfoDto> fileDtos = filePage.getContent().stream()
                 .map(fileInfoMapper::toDto)
@@ -243,17 +711,15 @@ public class FileService {
     }
 
     /**
-     * Search files by name
+     * Get public files
      *
-     * @param name the name to search for
-     * @param ownerId the owner ID
      * @param page the page number
      * @param size the page size
      * @return page of files
      */
-    public PageDto<FileInfoDto> searchFilesByName(String name, UUID ownerId, int page, int size) {
+    public PageDto<FileInfoDto> getPublicFiles(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<FileInfo> filePage = fileInfoRepository.searchByNameAndOwnerId(name, ownerId, pageable);
+        Page<FileInfo> filePage = fileInfoRepository.findByIsPublicTrueAndIsDeletedFalse(pageable);
         
         List<FileInfoDto> fileDtos = filePage.getContent().stream()
                 .map(fileInfoMapper::toDto)
@@ -294,6 +760,7 @@ public class FileService {
         fileInfo.setUpdatedAt(LocalDateTime.now());
         
         FileInfo updatedFileInfo = fileInfoRepository.save(fileInfo);
+        fileAccessResolver.invalidate(fileId, fileInfo.isFolder());
         return fileInfoMapper.toDto(updatedFileInfo);
     }
     
@@ -336,6 +803,7 @@ public class FileService {
         }
         
         permission = filePermissionRepository.save(permission);
+        fileAccessResolver.invalidate(fileId, fileInfo.isFolder());
         
         // Send notification to user
         try {
@@ -375,6 +843,7 @@ public class FileService {
         // Remove permission
         fileInfo.removePermission(permission);
         filePermissionRepository.delete(permission);
+        fileAccessResolver.invalidate(fileId, fileInfo.isFolder());
         
         // Send notification to user
         try {
@@ -408,7 +877,7 @@ public class FileService {
     }
     
     /**
-     * Check if user has permission for a file
+     * Check if user has permission for a file, including permissions inherited from parent folders
      *
      * @param fileId the file ID
      * @param userId the user ID
@@ -416,21 +885,7 @@ public class FileService {
      * @return true if user has permission
      */
     public boolean hasPermission(UUID fileId, UUID userId, PermissionType permissionType) {
-        // Owner always has all permissions
-        FileInfo fileInfo = fileInfoRepository.findByIdAndIsDeletedFalse(fileId)
-                .orElseThrow(() -> new ResourceNotFoundException("File", "id", fileId.toString()));
-        
-        if (fileInfo.getOwnerId().equals(userId)) {
-            return true;
-        }
-        
-        // Public files have READ permission for everyone
-        if (fileInfo.isPublic() && permissionType == PermissionType.READ) {
-            return true;
-        }
-        
-        // Check specific permission
-        return filePermissionRepository.hasPermission(fileId, userId, permissionType);
+        return fileAccessResolver.hasPermission(fileId, userId, permissionType);
     }
 
     /**
@@ -441,25 +896,7 @@ public class FileService {
      * @return the file information
      */
     private FileInfo findFileWithAccessCheck(UUID fileId, UUID userId) {
-        // Check if user is the owner
-        FileInfo fileInfo = fileInfoRepository.findByIdAndOwnerIdAndIsDeletedFalse(fileId, userId)
-                .orElse(null);
-        
-        if (fileInfo == null) {
-            // Check if file is in user's group
-            fileInfo = fileInfoRepository.findById(fileId)
-                    .filter(f -> !f.isDeleted())
-                    .filter(f -> f.getGroupId() != null && userHasGroupAccess(userId, f.getGroupId()))
-                    .orElse(null);
-        }
-        
-        if (fileInfo == null) {
-            // Check if file is public
-            fileInfo = fileInfoRepository.findByIdAndIsPublicTrueAndIsDeletedFalse(fileId)
-                    .orElseThrow(() -> new ResourceNotFoundException("File", "id", fileId.toString()));
-        }
-        
-        return fileInfo;
+        return fileAccessResolver.findAccessible(fileId, userId, PermissionType.READ);
     }
 
     /**
@@ -475,16 +912,121 @@ public class FileService {
     }
 
     /**
-     * Check if a user has access to a group
+     * Check that the owner may upload into the target folder
      *
-     * @param userId the user ID
-     * @param groupId the group ID
-     * @return true if the user has access
+     * @param parentFolderId the parent folder ID (optional)
+     * @param ownerId the owner ID
+     */
+    private void checkUploadTarget(UUID parentFolderId, UUID ownerId) {
+        if (parentFolderId != null && !hasPermission(parentFolderId, ownerId, PermissionType.WRITE)) {
+            throw new BusinessException("You don't have permission to upload to this folder");
+        }
+    }
+
+    /**
+     * Move a file or folder below another parent, keeping the folder aggregates in step
+     *
+     * @param fileInfo the file or folder to move
+     * @param targetFolderId the target folder ID, or null for the top level
+     * @return the moved file information
      */
-    private boolean userHasGroupAccess(UUID userId, UUID groupId) {
-        // TODO: Implement group access check
-        // This would typically involve checking if the user is a member of the group
-        return false;
+    private FileInfo move(FileInfo fileInfo, UUID targetFolderId) {
+        if (Objects.equals(fileInfo.getParentFolderId(), targetFolderId)) {
+            return fileInfo;
+        }
+        findTargetFolder(targetFolderId);
+        if (fileInfo.isFolder()) {
+            checkNotInsideItself(fileInfo, targetFolderId);
+        }
+        
+        folderStatsService.recordRemoved(fileInfo);
+        fileInfo.setParentFolderId(targetFolderId);
+        fileInfo.setUpdatedAt(LocalDateTime.now());
+        FileInfo movedFileInfo = fileInfoRepository.save(fileInfo);
+        folderStatsService.recordAdded(movedFileInfo);
+        
+        // Access inherited from folders changes with the new parent
+        fileAccessResolver.invalidate(movedFileInfo.getId(), movedFileInfo.isFolder());
+        return movedFileInfo;
+    }
+
+    /**
+     * Find the folder a file is moved or copied into
+     *
+     * @param folderId the folder ID, or null for the top level
+     * @return the folder, or null for the top level
+     */
+    private FileInfo findTargetFolder(UUID folderId) {
+        if (folderId == null) {
+            return null;
+        }
+        
+        FileInfo folder = fileInfoRepository.findByIdAndIsDeletedFalse(folderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Folder", "id", folderId.toString()));
+        if (!folder.isFolder()) {
+            throw new BusinessException("Not a folder: " + folderId);
+        }
+        return folder;
+    }
+
+    /**
+     * Check that a folder is not moved or copied into itself or one of its subfolders
+     *
+     * @param folder the folder
+     * @param targetFolderId the target folder ID, or null for the top level
+     */
+    private void checkNotInsideItself(FileInfo folder, UUID targetFolderId) {
+        if (targetFolderId == null) {
+            return;
+        }
+        
+        boolean inside = folder.getId().equals(targetFolderId) || fileInfoRepository.findAncestors(targetFolderId).stream()
+                .anyMatch(ancestor -> ancestor.getId().equals(folder.getId()));
+        if (inside) {
+            throw new BusinessException("A folder cannot be moved or copied into itself");
+        }
+    }
+
+    /**
+     * Build the error for a storage backend that does not let clients transfer content directly
+     *
+     * @return the exception to throw
+     */
+    private static BusinessException directTransfersUnsupported() {
+        return new BusinessException("Direct transfers are not supported by the configured storage");
+    }
+
+    /**
+     * Create the file information for an uploaded file
+     *
+     * @param file the uploaded file
+     * @param objectName the object name in storage
+     * @param ownerId the owner ID
+     * @param parentFolderId the parent folder ID (optional)
+     * @param isPublic whether the file is public
+     * @param groupId the group ID (optional)
+     * @return the unsaved file information
+     */
+    private FileInfo newFileInfo(MultipartFile file, String objectName, UUID ownerId, UUID parentFolderId,
+                                 boolean isPublic, UUID groupId) {
+        String originalFilename = file.getOriginalFilename();
+        String contentType = file.getContentType();
+        
+        return FileInfo.builder()
+                .originalName(originalFilename)
+                .filePath(objectName)
+                .fileSize(file.getSize())
+                .contentType(contentType)
+                .mediaType(extractMediaType(contentType))
+                .extension(extractExtension(originalFilename))
+                .isFolder(false)
+                .parentFolderId(parentFolderId)
+                .ownerId(ownerId)
+                .groupId(groupId)
+                .isPublic(isPublic)
+                .thumbnailStatus(thumbnailService.initialStatus(
+                        extractMediaType(contentType), extractExtension(originalFilename)))
+                .build();
     }
 
     /**
@@ -501,6 +1043,32 @@ public class FileService {
         return UUID.randomUUID().toString() + extension;
     }
 
+    /**
+     * Extract the lower-case file extension from a file name
+     *
+     * @param filename the file name
+     * @return the extension, or an empty string if there is none
+     */
+    private String extractExtension(String filename) {
+        if (filename != null && filename.contains(".")) {
+            return filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
+        }
+        return "";
+    }
+
+    /**
+     * Extract the media type (first part of the content type)
+     *
+     * @param contentType the content type
+     * @return the media type, or an empty string if there is none
+     */
+    private String extractMediaType(String contentType) {
+        if (contentType != null && contentType.contains("/")) {
+            return contentType.substring(0, contentType.indexOf("/"));
+        }
+        return "";
+    }
+
     /**
      * Generate a folder path
      *
@@ -0,0 +1,198 @@
+package com.example.file.service;
+
+import com.example.common.exception.ResourceNotFoundException;
+import com.example.file.dto.FileJobDto;
+import com.example.file.entity.FileInfo;
+import com.example.file.entity.FileJob;
+import com.example.file.entity.FileJob.JobStatus;
+import com.example.file.entity.FileJob.JobType;
+import com.example.file.mapper.FileJobMapper;
+import com.example.file.repository.FileInfoRepository;
+import com.example.file.repository.FileJobRepository;
+import com.example.file.storage.StorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Service for deleting whole folder trees.
+ *
+ * The subtree is soft deleted with a single set-based UPDATE inside the caller's
+ * transaction. Removing the stored objects is handed to a background job that walks
+ * the subtree in keyset batches and uses multi-object deletes, recording progress
+ * on a {@link FileJob} row so the job can be observed and resumed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FolderDeletionService {
+
+    private final FileInfoRepository fileInfoRepository;
+    private final FileJobRepository fileJobRepository;
+    private final FileJobMapper fileJobMapper;
+    private final StorageService storageService;
+    private final ThreadPoolTaskExecutor fileJobExecutor;
+    private final ThumbnailService thumbnailService;
+    private final FolderStatsService folderStatsService;
+    private final QuotaService quotaService;
+
+    @Value("${file.delete-job.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${file.delete-job.stale-after-seconds:300}")
+    private long staleAfterSeconds;
+
+    @Value("${file.delete-job.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${file.delete-job.retry-backoff-seconds:60}")
+    private long retryBackoffSeconds;
+
+    /**
+     * Soft delete a folder subtree and schedule removal of its objects
+     *
+     * @param folder the folder to delete
+     * @param userId the user requesting the deletion
+     * @return the background job
+     */
+    @Transactional
+    public FileJobDto deleteFolder(FileInfo folder, UUID userId) {
+        // Take the subtree out of the ancestors' aggregates and the quotas while it is still live
+        folderStatsService.recordRemoved(folder);
+        quotaService.releaseUsageAfterCommit(fileInfoRepository.sumSubtreeUsage(folder.getId()));
+        
+        int deleted = fileInfoRepository.softDeleteSubtree(folder.getId(), LocalDateTime.now());
+        log.info("Soft deleted {} items below folder {}", deleted, folder.getId());
+        
+        FileJob job = FileJob.builder()
+                .jobType(JobType.FOLDER_DELETE)
+                .status(JobStatus.PENDING)
+                .targetId(folder.getId())
+                .requestedBy(userId)
+                .build();
+        job = fileJobRepository.save(job);
+        
+        UUID jobId = job.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(jobId);
+            }
+        });
+        
+        return fileJobMapper.toDto(job);
+    }
+
+    /**
+     * Get a background job. Jobs of other users are reported as not found.
+     *
+     * @param jobId the job ID
+     * @param userId the user ID
+     * @return the job
+     */
+    public FileJobDto getJob(UUID jobId, UUID userId) {
+        return fileJobRepository.findById(jobId)
+                .filter(job -> userId.equals(job.getRequestedBy()))
+                .map(fileJobMapper::toDto)
+                .orElseThrow(() -> new ResourceNotFoundException("Job", "id", jobId.toString()));
+    }
+
+    /**
+     * Pick up delete jobs that were never started or whose worker died, and retry failed
+     * jobs with exponential backoff until they reach the attempt cap
+     */
+    @Scheduled(fixedDelayString = "${file.delete-job.resume-interval-ms:60000}")
+    public void resumeStaleJobs() {
+        LocalDateTime staleBefore = LocalDateTime.now().minusSeconds(staleAfterSeconds);
+        List<FileJob> staleJobs = fileJobRepository.findByStatusInAndUpdatedAtBefore(
+                List.of(JobStatus.PENDING, JobStatus.RUNNING), staleBefore);
+        
+        for (FileJob job : staleJobs) {
+            if (job.getJobType() == JobType.FOLDER_DELETE) {
+                log.info("Resuming stale folder delete job {}", job.getId());
+                submit(job.getId());
+            }
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        for (FileJob job : fileJobRepository.findByJobTypeAndStatusAndAttemptsLessThan(
+                JobType.FOLDER_DELETE, JobStatus.FAILED, maxAttempts)) {
+            long backoffSeconds = retryBackoffSeconds << Math.min(job.getAttempts(), 16);
+            if (fileJobRepository.requeueFailed(job.getId(), maxAttempts, now.minusSeconds(backoffSeconds), now) > 0) {
+                log.info("Retrying failed folder delete job {} (attempt {} of {})", job.getId(), job.getAttempts() + 1, maxAttempts);
+                submit(job.getId());
+            }
+        }
+    }
+
+    /**
+     * Run a folder delete job to completion
+     *
+     * @param jobId the job ID
+     */
+    public void runJob(UUID jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (fileJobRepository.claim(jobId, now.minusSeconds(staleAfterSeconds), now) == 0) {
+            log.debug("Folder delete job {} is already running or finished", jobId);
+            return;
+        }
+        
+        FileJob job = fileJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Job", "id", jobId.toString()));
+        
+        try {
+            UUID rootId = job.getTargetId();
+            if (job.getTotalItems() == null) {
+                fileJobRepository.updateTotal(jobId, fileInfoRepository.countDeletedSubtreeFiles(rootId), LocalDateTime.now());
+            }
+            
+            String cursor = job.getCursor() != null ? job.getCursor() : "";
+            List<String> batch = fileInfoRepository.findDeletedSubtreeObjectNames(rootId, cursor, batchSize);
+            while (!batch.isEmpty()) {
+                List<String> failed = storageService.deleteFiles(batch);
+                storageService.deleteFiles(batch.stream()
+                        .flatMap(name -> thumbnailService.derivativeNames(name).stream())
+                        .collect(Collectors.toList()));
+                cursor = batch.get(batch.size() - 1);
+                fileJobRepository.recordProgress(jobId, batch.size() - failed.size(), failed.size(), cursor, LocalDateTime.now());
+                
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                batch = fileInfoRepository.findDeletedSubtreeObjectNames(rootId, cursor, batchSize);
+            }
+            
+            fileJobRepository.finish(jobId, JobStatus.COMPLETED, null, LocalDateTime.now());
+            log.info("Folder delete job {} completed", jobId);
+        } catch (Exception e) {
+            log.error("Folder delete job {} failed: {}", jobId, e.getMessage(), e);
+            fileJobRepository.finish(jobId, JobStatus.FAILED, e.getMessage(), LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Hand a job to the executor. If the executor is saturated the job stays pending
+     * and is picked up by {@link #resumeStaleJobs()}.
+     *
+     * @param jobId the job ID
+     */
+    private void submit(UUID jobId) {
+        try {
+            fileJobExecutor.execute(() -> runJob(jobId));
+        } catch (TaskRejectedException e) {
+            log.warn("Job executor is saturated, folder delete job {} will be resumed later", jobId);
+        }
+    }
+}
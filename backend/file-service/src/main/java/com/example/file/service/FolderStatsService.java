@@ -0,0 +1,159 @@
+package com.example.file.service;
+
+import com.example.file.dto.FolderStatsDto;
+import com.example.file.entity.FileInfo;
+import com.example.file.repository.FileInfoRepository;
+import com.example.file.repository.FolderStatsView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service maintaining the size and item count aggregates of folders.
+ *
+ * Every change appends one delta row per ancestor folder in the caller's transaction,
+ * so uploads into the same hot folder never contend on its row. A scheduled job folds
+ * the deltas into the aggregate columns in batches, and a reconciliation job recomputes
+ * aggregates from the tree to correct any drift.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FolderStatsService {
+
+    private final FileInfoRepository fileInfoRepository;
+
+    @Value("${file.tree.max-depth:100}")
+    private int maxTreeDepth;
+
+    @Value("${file.stats.compact-batch-size:10000}")
+    private int compactBatchSize;
+
+    @Value("${file.stats.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    /**
+     * Record that a file or folder was added below a folder
+     *
+     * @param item the added file or folder, with its aggregates if it is a folder
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAdded(FileInfo item) {
+        record(item, 1);
+    }
+
+    /**
+     * Record that a file or folder was removed from below a folder
+     *
+     * @param item the removed file or folder, with its aggregates if it is a folder
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRemoved(FileInfo item) {
+        record(item, -1);
+    }
+
+    /**
+     * Record that many items were added below a folder at once
+     *
+     * @param folderId the folder the items were added to
+     * @param size the total size of the added files
+     * @param files the number of added files
+     * @param folders the number of added folders
+     */
+    @Transactional
+    public void recordAdded(UUID folderId, long size, long files, long folders) {
+        if (folderId != null) {
+            fileInfoRepository.recordFolderStatsDelta(folderId, size, files, folders, maxTreeDepth);
+        }
+    }
+
+    /**
+     * Recompute the aggregates of some folders from their subtrees
+     *
+     * @param folderIds the folder IDs
+     */
+    public void reconcile(List<UUID> folderIds) {
+        for (int from = 0; from < folderIds.size(); from += reconcileBatchSize) {
+            fileInfoRepository.reconcileFolderStats(folderIds.subList(from, Math.min(from + reconcileBatchSize, folderIds.size())));
+        }
+    }
+
+    /**
+     * Get the aggregates of a folder
+     *
+     * @param folderId the folder ID
+     * @return the folder statistics
+     */
+    public FolderStatsDto getFolderStats(UUID folderId) {
+        FolderStatsView stats = fileInfoRepository.findFolderStats(folderId);
+        return FolderStatsDto.builder()
+                .folderId(folderId)
+                .totalSize(stats.getTotalSize())
+                .fileCount(stats.getFileCount())
+                .folderCount(stats.getFolderCount())
+                .build();
+    }
+
+    /**
+     * Fold pending deltas into the folder aggregates
+     */
+    @Scheduled(fixedDelayString = "${file.stats.compact-interval-ms:5000}")
+    public void compactDeltas() {
+        int folders;
+        do {
+            folders = fileInfoRepository.compactFolderStatsDeltas(compactBatchSize);
+        } while (folders > 0);
+    }
+
+    /**
+     * Recompute all folder aggregates from the tree, a batch of folders at a time
+     */
+    @Scheduled(cron = "${file.stats.reconcile-cron:0 0 3 * * *}")
+    public void reconcile() {
+        UUID afterId = new UUID(0L, 0L);
+        int drifted = 0;
+        
+        List<UUID> batch = fileInfoRepository.findFolderIdsAfter(afterId, reconcileBatchSize);
+        while (!batch.isEmpty()) {
+            drifted += fileInfoRepository.reconcileFolderStats(batch);
+            afterId = batch.get(batch.size() - 1);
+            batch = fileInfoRepository.findFolderIdsAfter(afterId, reconcileBatchSize);
+        }
+        
+        if (drifted > 0) {
+            log.warn("Corrected drifted aggregates of {} folders", drifted);
+        }
+    }
+
+    /**
+     * Append the change for an item to its parent folder and every folder above it
+     */
+    private void record(FileInfo item, int sign) {
+        if (item.getParentFolderId() == null) {
+            return;
+        }
+        
+        long size;
+        long files;
+        long folders;
+        if (item.isFolder()) {
+            FolderStatsView stats = fileInfoRepository.findFolderStats(item.getId());
+            size = stats.getTotalSize();
+            files = stats.getFileCount();
+            folders = stats.getFolderCount() + 1;
+        } else {
+            size = item.getFileSize() != null ? item.getFileSize() : 0;
+            files = 1;
+            folders = 0;
+        }
+        
+        fileInfoRepository.recordFolderStatsDelta(item.getParentFolderId(), sign * size, sign * files, sign * folders, maxTreeDepth);
+    }
+}
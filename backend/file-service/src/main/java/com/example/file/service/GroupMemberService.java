@@ -0,0 +1,66 @@
+package com.example.file.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service managing group membership. Members of a group can read the files that
+ * belong to it; the check itself is part of the access query in {@link FileAccessResolver}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GroupMemberService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FileAccessResolver fileAccessResolver;
+
+    /**
+     * Get the members of a group
+     *
+     * @param groupId the group ID
+     * @return the user IDs of the members
+     */
+    public List<UUID> getMembers(UUID groupId) {
+        return jdbcTemplate.queryForList(
+                "SELECT user_id FROM file_group_member WHERE group_id = ? ORDER BY created_at", UUID.class, groupId);
+    }
+
+    /**
+     * Add a user to a group
+     *
+     * @param groupId the group ID
+     * @param userId the user ID
+     */
+    @Transactional
+    public void addMember(UUID groupId, UUID userId) {
+        int added = jdbcTemplate.update(
+                "INSERT INTO file_group_member (group_id, user_id) VALUES (?, ?) ON CONFLICT DO NOTHING", groupId, userId);
+        if (added > 0) {
+            log.info("Added user {} to group {}", userId, groupId);
+            fileAccessResolver.invalidateAll();
+        }
+    }
+
+    /**
+     * Remove a user from a group
+     *
+     * @param groupId the group ID
+     * @param userId the user ID
+     */
+    @Transactional
+    public void removeMember(UUID groupId, UUID userId) {
+        int removed = jdbcTemplate.update(
+                "DELETE FROM file_group_member WHERE group_id = ? AND user_id = ?", groupId, userId);
+        if (removed > 0) {
+            log.info("Removed user {} from group {}", userId, groupId);
+            fileAccessResolver.invalidateAll();
+        }
+    }
+}
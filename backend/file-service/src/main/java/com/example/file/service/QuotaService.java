@@ -0,0 +1,378 @@
+package com.example.file.service;
+
+import com.example.common.exception.BusinessException;
+import com.example.file.dto.QuotaDto;
+import com.example.file.repository.FileInfoRepository;
+import com.example.file.repository.UsageView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Service enforcing per-owner and per-group storage quotas.
+ *
+ * Usage is held in Redis hashes with used and reserved byte counters. Space is reserved
+ * before an upload streams and committed or released once the upload transaction
+ * completes, each as a single Lua script, so a quota check is one round trip. All keys
+ * share the {quota} hash tag so the scripts can touch several scopes on a cluster.
+ * Reservations that are never settled expire, and a nightly job corrects drift of the
+ * used counters from the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QuotaService {
+
+    private static final String KEY_PREFIX = "{quota}:";
+    private static final String RESERVATION_INDEX = KEY_PREFIX + "reservations";
+
+    private static final RedisScript<Long> RESERVE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/quota-reserve.lua"), Long.class);
+    private static final RedisScript<Long> SETTLE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/quota-settle.lua"), Long.class);
+    private static final RedisScript<Long> RECONCILE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/quota-reconcile.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final FileInfoRepository fileInfoRepository;
+
+    @Value("${file.quota.owner-limit-bytes:10737418240}")
+    private long ownerLimitBytes;
+
+    @Value("${file.quota.group-limit-bytes:107374182400}")
+    private long groupLimitBytes;
+
+    @Value("${file.quota.reservation-ttl-seconds:3600}")
+    private long reservationTtlSeconds;
+
+    @Value("${file.quota.sweep-batch-size:1000}")
+    private int sweepBatchSize;
+
+    @Value("${file.quota.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    /**
+     * Reserve space for an upload
+     *
+     * @param ownerId the owner ID
+     * @param groupId the group ID (optional)
+     * @param bytes the number of bytes to reserve
+     * @return the reservation ID
+     * @throws BusinessException if the owner or group quota would be exceeded
+     */
+    public String reserve(UUID ownerId, UUID groupId, long bytes) {
+        return reserve(ownerId, groupId, bytes, null);
+    }
+
+    /**
+     * Reserve space for the upload of a specific object, so the reservation can later be
+     * checked against the owner, group and object completing the upload
+     *
+     * @param ownerId the owner ID
+     * @param groupId the group ID (optional)
+     * @param bytes the number of bytes to reserve
+     * @param objectName the object being uploaded (optional)
+     * @return the reservation ID
+     * @throws BusinessException if the owner or group quota would be exceeded
+     */
+    public String reserve(UUID ownerId, UUID groupId, long bytes, String objectName) {
+        String reservationId = UUID.randomUUID().toString();
+        
+        List<String> keys = new ArrayList<>();
+        keys.add(RESERVATION_INDEX);
+        keys.add(reservationKey(reservationId));
+        keys.add(ownerKey(ownerId));
+        List<String> args = new ArrayList<>();
+        args.add(Long.toString(bytes));
+        args.add(Long.toString(System.currentTimeMillis() + reservationTtlSeconds * 1000));
+        args.add(objectName != null ? objectName : "");
+        args.add(Long.toString(ownerLimitBytes));
+        if (groupId != null) {
+            keys.add(groupKey(groupId));
+            args.add(Long.toString(groupLimitBytes));
+        }
+        
+        Long full = redisTemplate.execute(RESERVE_SCRIPT, keys, args.toArray());
+        if (full != null && full != 0) {
+            throw new BusinessException("QUOTA_EXCEEDED",
+                    full == 1 ? "Storage quota exceeded" : "Group storage quota exceeded");
+        }
+        return reservationId;
+    }
+
+    /**
+     * Commit a reservation with the bytes actually stored
+     *
+     * @param reservationId the reservation ID
+     * @param storedBytes the bytes actually stored
+     * @return true if the reservation was still held
+     */
+    public boolean commit(String reservationId, long storedBytes) {
+        return settle(reservationId, storedBytes);
+    }
+
+    /**
+     * Release a reservation without storing anything
+     *
+     * @param reservationId the reservation ID
+     */
+    public void release(String reservationId) {
+        settle(reservationId, -1);
+    }
+
+    /**
+     * Commit a reservation if the current transaction commits and release it otherwise
+     *
+     * @param reservationId the reservation ID
+     * @param storedBytes the bytes actually stored
+     */
+    public void settleAfterTransaction(String reservationId, long storedBytes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commit(reservationId, storedBytes);
+            return;
+        }
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    commit(reservationId, storedBytes);
+                } else {
+                    release(reservationId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Get the size of a reservation made for an object
+     *
+     * @param reservationId the reservation ID
+     * @param ownerId the owner the reservation must have been made for
+     * @param groupId the group the reservation must have been made for (optional)
+     * @param objectName the object the reservation must have been made for
+     * @return the reserved bytes, or null if the reservation no longer exists or was made
+     *         for another owner, group or object
+     */
+    public Long getReservedBytes(String reservationId, UUID ownerId, UUID groupId, String objectName) {
+        List<Object> values = redisTemplate.opsForHash()
+                .multiGet(reservationKey(reservationId), List.of("bytes", "scopes", "object"));
+        String expectedScopes = groupId != null ? ownerKey(ownerId) + "," + groupKey(groupId) : ownerKey(ownerId);
+        if (values.get(0) == null || !expectedScopes.equals(values.get(1)) || !objectName.equals(values.get(2))) {
+            return null;
+        }
+        return Long.valueOf((String) values.get(0));
+    }
+
+    /**
+     * Give back the space of a removed file once the current transaction commits
+     *
+     * @param ownerId the owner ID
+     * @param groupId the group ID (optional)
+     * @param bytes the removed bytes
+     */
+    public void releaseUsageAfterCommit(UUID ownerId, UUID groupId, long bytes) {
+        Map<String, Long> deltas = new HashMap<>();
+        deltas.put(ownerKey(ownerId), bytes);
+        if (groupId != null) {
+            deltas.put(groupKey(groupId), bytes);
+        }
+        releaseAfterCommit(deltas);
+    }
+
+    /**
+     * Give back the space of removed files once the current transaction commits
+     *
+     * @param usage the removed bytes per owner and group
+     */
+    public void releaseUsageAfterCommit(List<UsageView> usage) {
+        Map<String, Long> deltas = new HashMap<>();
+        for (UsageView row : usage) {
+            deltas.merge(ownerKey(row.getOwnerId()), row.getBytes(), Long::sum);
+            if (row.getGroupId() != null) {
+                deltas.merge(groupKey(row.getGroupId()), row.getBytes(), Long::sum);
+            }
+        }
+        releaseAfterCommit(deltas);
+    }
+
+    /**
+     * Get the storage usage of an owner
+     *
+     * @param ownerId the owner ID
+     * @return the usage and limit
+     */
+    public QuotaDto getOwnerQuota(UUID ownerId) {
+        return toDto("OWNER", ownerId, ownerKey(ownerId), ownerLimitBytes);
+    }
+
+    /**
+     * Get the storage usage of a group
+     *
+     * @param groupId the group ID
+     * @return the usage and limit
+     */
+    public QuotaDto getGroupQuota(UUID groupId) {
+        return toDto("GROUP", groupId, groupKey(groupId), groupLimitBytes);
+    }
+
+    /**
+     * Release reservations whose uploads never completed
+     */
+    @Scheduled(fixedDelayString = "${file.quota.sweep-interval-ms:60000}")
+    public void releaseExpiredReservations() {
+        Set<String> expired = redisTemplate.opsForZSet()
+                .rangeByScore(RESERVATION_INDEX, 0, System.currentTimeMillis(), 0, sweepBatchSize);
+        if (expired == null || expired.isEmpty()) {
+            return;
+        }
+        
+        for (String reservationKey : expired) {
+            redisTemplate.execute(SETTLE_SCRIPT, List.of(RESERVATION_INDEX, reservationKey), "-1");
+        }
+        log.info("Released {} expired quota reservations", expired.size());
+    }
+
+    /**
+     * Correct the used counters from the stored files. The counters are read before the
+     * files are summed and each one is only overwritten if it still holds the value read,
+     * so a reserve, commit or release that lands meanwhile is never lost; that scope is
+     * corrected on the next run instead. Scopes without live files are reset to zero.
+     */
+    @Scheduled(cron = "${file.quota.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        Map<String, String> before = readUsedCounters();
+        
+        Map<String, Long> used = new HashMap<>();
+        for (UsageView row : fileInfoRepository.sumUsage()) {
+            used.merge(ownerKey(row.getOwnerId()), row.getBytes(), Long::sum);
+            if (row.getGroupId() != null) {
+                used.merge(groupKey(row.getGroupId()), row.getBytes(), Long::sum);
+            }
+        }
+        
+        Set<String> scopes = new LinkedHashSet<>(before.keySet());
+        scopes.addAll(used.keySet());
+        
+        long corrected = 0;
+        List<String> keys = new ArrayList<>(reconcileBatchSize);
+        List<String> args = new ArrayList<>(reconcileBatchSize * 2);
+        for (String key : scopes) {
+            keys.add(key);
+            args.add(before.getOrDefault(key, ""));
+            args.add(Long.toString(used.getOrDefault(key, 0L)));
+            if (keys.size() == reconcileBatchSize) {
+                corrected += reconcileBatch(keys, args);
+                keys.clear();
+                args.clear();
+            }
+        }
+        if (!keys.isEmpty()) {
+            corrected += reconcileBatch(keys, args);
+        }
+        log.info("Reconciled storage usage of {} owners and groups, corrected {}", scopes.size(), corrected);
+    }
+
+    private Map<String, String> readUsedCounters() {
+        List<String> keys = new ArrayList<>();
+        scanKeys(KEY_PREFIX + "owner:*", keys);
+        scanKeys(KEY_PREFIX + "group:*", keys);
+        
+        Map<String, String> used = new HashMap<>();
+        byte[] field = "used".getBytes(StandardCharsets.UTF_8);
+        for (int from = 0; from < keys.size(); from += reconcileBatchSize) {
+            List<String> batch = keys.subList(from, Math.min(from + reconcileBatchSize, keys.size()));
+            List<Object> values = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                batch.forEach(key -> connection.hashCommands().hGet(key.getBytes(StandardCharsets.UTF_8), field));
+                return null;
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                used.put(batch.get(i), values.get(i) != null ? (String) values.get(i) : "");
+            }
+        }
+        return used;
+    }
+
+    private void scanKeys(String pattern, List<String> keys) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(reconcileBatchSize).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            cursor.forEachRemaining(keys::add);
+        }
+    }
+
+    private long reconcileBatch(List<String> keys, List<String> args) {
+        Long corrected = redisTemplate.execute(RECONCILE_SCRIPT, keys, args.toArray());
+        return corrected != null ? corrected : 0;
+    }
+
+    private void releaseAfterCommit(Map<String, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        
+        Runnable apply = () -> deltas.forEach((key, bytes) -> redisTemplate.opsForHash().increment(key, "used", -bytes));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private boolean settle(String reservationId, long storedBytes) {
+        Long settled = redisTemplate.execute(SETTLE_SCRIPT,
+                List.of(RESERVATION_INDEX, reservationKey(reservationId)), Long.toString(storedBytes));
+        if (settled == null || settled == 0) {
+            log.warn("Quota reservation {} had already expired or been settled", reservationId);
+            return false;
+        }
+        return true;
+    }
+
+    private QuotaDto toDto(String scope, UUID scopeId, String key, long defaultLimit) {
+        List<Object> values = redisTemplate.opsForHash().multiGet(key, List.of("used", "reserved", "limit"));
+        long limit = values.get(2) != null ? Long.parseLong((String) values.get(2)) : defaultLimit;
+        return QuotaDto.builder()
+                .scope(scope)
+                .scopeId(scopeId)
+                .usedBytes(values.get(0) != null ? Long.parseLong((String) values.get(0)) : 0)
+                .reservedBytes(values.get(1) != null ? Long.parseLong((String) values.get(1)) : 0)
+                .limitBytes(limit >= 0 ? limit : null)
+                .build();
+    }
+
+    private String ownerKey(UUID ownerId) {
+        return KEY_PREFIX + "owner:" + ownerId;
+    }
+
+    private String groupKey(UUID groupId) {
+        return KEY_PREFIX + "group:" + groupId;
+    }
+
+    private String reservationKey(String reservationId) {
+        return KEY_PREFIX + "reservation:" + reservationId;
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.file.service;
+
+import com.example.file.repository.FileInfoRepository;
+import com.example.file.storage.StorageService;
+import com.example.file.storage.StoredObject;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service reclaiming space from deleted files.
+ *
+ * Items in the trash are hard deleted in batches once their retention period is over.
+ * Objects that no file row refers to, for example because an upload failed after the
+ * object was stored, are found by streaming the storage listing and checking it against
+ * the database a batch at a time, and removed with bulk deletes at a bounded rate.
+ * Each run holds a Postgres advisory lock, so only one replica runs it at a time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StorageGarbageCollector {
+
+    private final FileInfoRepository fileInfoRepository;
+    private final StorageService storageService;
+    private final ThumbnailService thumbnailService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${file.trash.retention-days:30}")
+    private long retentionDays;
+
+    @Value("${file.gc.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${file.gc.orphan-min-age-hours:24}")
+    private long orphanMinAgeHours;
+
+    @Value("${file.gc.deletes-per-second:200}")
+    private int deletesPerSecond;
+
+    @Value("${file.gc.max-deletes-per-run:100000}")
+    private long maxDeletesPerRun;
+
+    @Value("${file.gc.dry-run:false}")
+    private boolean dryRun;
+
+    /**
+     * Hard delete items that have been in the trash for longer than the retention period
+     */
+    @Scheduled(cron = "${file.trash.purge-cron:0 0 4 * * *}")
+    public void purgeTrash() {
+        runExclusively("file-service:purge-trash", this::doPurgeTrash);
+    }
+
+    private void doPurgeTrash() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        long purged = 0;
+        
+        List<String> batch = fileInfoRepository.purgeTrash(cutoff, batchSize);
+        while (!batch.isEmpty()) {
+            purged += batch.size();
+            
+            // Objects are normally removed on delete; this catches any that were left behind
+            List<String> objectNames = batch.stream()
+                    .filter(Objects::nonNull)
+                    .flatMap(objectName -> Stream.concat(Stream.of(objectName), thumbnailService.derivativeNames(objectName).stream()))
+                    .collect(Collectors.toList());
+            storageService.deleteFiles(objectNames);
+            
+            batch = fileInfoRepository.purgeTrash(cutoff, batchSize);
+        }
+        
+        if (purged > 0) {
+            log.info("Purged {} items from the trash", purged);
+        }
+    }
+
+    /**
+     * Delete objects that no file refers to
+     */
+    @Scheduled(cron = "${file.gc.orphan-cron:0 0 5 * * SUN}")
+    public void collectOrphans() {
+        runExclusively("file-service:collect-orphans", this::doCollectOrphans);
+    }
+
+    private void doCollectOrphans() {
+        Instant minAge = Instant.now().minus(orphanMinAgeHours, ChronoUnit.HOURS);
+        long scanned = 0;
+        long deleted = 0;
+        
+        try (Stream<StoredObject> objects = storageService.listObjects("")) {
+            Iterator<StoredObject> iterator = objects
+                    .filter(object -> object.lastModified() == null || object.lastModified().isBefore(minAge))
+                    .iterator();
+            
+            List<String> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext() && deleted < maxDeletesPerRun) {
+                batch.add(iterator.next().objectName());
+                scanned++;
+                if (batch.size() == batchSize || !iterator.hasNext()) {
+                    deleted += deleteOrphans(batch);
+                    batch.clear();
+                }
+            }
+        }
+        
+        log.info("Orphan collection scanned {} objects and {} {} orphans", scanned, dryRun ? "found" : "deleted", deleted);
+    }
+
+    /**
+     * Run a task while holding a session-level advisory lock on a dedicated connection.
+     * If another replica holds the lock the task is skipped; the lock is released when
+     * the task ends or, if the node dies, when its connection closes.
+     *
+     * @param lockName the lock name
+     * @param task the task
+     */
+    private void runExclusively(String lockName, Runnable task) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(hashtext(?))")) {
+                lock.setString(1, lockName);
+                try (ResultSet result = lock.executeQuery()) {
+                    if (!result.next() || !result.getBoolean(1)) {
+                        log.info("Skipping {}, another node is running it", lockName);
+                        return null;
+                    }
+                }
+            }
+            
+            try {
+                task.run();
+            } finally {
+                try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))")) {
+                    unlock.setString(1, lockName);
+                    unlock.execute();
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Delete the objects of a batch that no file refers to, pacing deletes to the configured rate
+     *
+     * @param objectNames the object names
+     * @return the number of orphans
+     */
+    private long deleteOrphans(List<String> objectNames) {
+        // A derivative belongs to the file of its original object
+        Set<String> candidates = new HashSet<>();
+        for (String objectName : objectNames) {
+            String originalName = thumbnailService.originalName(objectName);
+            candidates.add(originalName != null ? originalName : objectName);
+        }
+        Set<String> registered = new HashSet<>(fileInfoRepository.findRegisteredFilePaths(candidates));
+        
+        List<String> orphans = objectNames.stream()
+                .filter(objectName -> {
+                    String originalName = thumbnailService.originalName(objectName);
+                    return !registered.contains(originalName != null ? originalName : objectName);
+                })
+                .collect(Collectors.toList());
+        if (orphans.isEmpty()) {
+            return 0;
+        }
+        
+        if (dryRun) {
+            orphans.forEach(orphan -> log.info("Orphan object {}", orphan));
+            return orphans.size();
+        }
+        
+        long started = System.currentTimeMillis();
+        List<String> failed = storageService.deleteFiles(orphans);
+        long minDurationMillis = orphans.size() * 1000L / deletesPerSecond;
+        long remaining = minDurationMillis - (System.currentTimeMillis() - started);
+        if (remaining > 0) {
+            try {
+                Thread.sleep(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return orphans.size() - failed.size();
+    }
+}
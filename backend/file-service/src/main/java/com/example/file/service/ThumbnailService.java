@@ -0,0 +1,305 @@
+package com.example.file.service;
+
+import com.example.file.entity.FileInfo;
+import com.example.file.entity.FileInfo.ThumbnailStatus;
+import com.example.file.repository.FileInfoRepository;
+import com.example.file.storage.StorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Service for generating image thumbnails and previews.
+ *
+ * Generation runs on a bounded pool after the upload transaction commits. Large
+ * images are subsampled while decoding so memory is bounded by the preview size,
+ * not the source size. Derivatives are stored as JPEG next to the original object.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ThumbnailService {
+
+    private static final Set<String> SUPPORTED_EXTENSIONS = Arrays.stream(ImageIO.getReaderFileSuffixes())
+            .map(suffix -> suffix.toLowerCase(Locale.ROOT))
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final FileInfoRepository fileInfoRepository;
+    private final StorageService storageService;
+    private final ThreadPoolTaskExecutor thumbnailExecutor;
+
+    @Value("${file.thumbnail.max-pixels:100000000}")
+    private long maxPixels;
+
+    @Value("${file.thumbnail.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${file.thumbnail.stale-after-seconds:600}")
+    private long staleAfterSeconds;
+
+    @Value("${file.thumbnail.resume-batch-size:100}")
+    private int resumeBatchSize;
+
+    /**
+     * Derivative variants and their bounding box
+     */
+    public enum Variant {
+        THUMBNAIL(256),
+        PREVIEW(1024);
+
+        private final int maxSize;
+
+        Variant(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+    }
+
+    /**
+     * Get the initial thumbnail status of a new file
+     *
+     * @param mediaType the media type
+     * @param extension the file extension
+     * @return PENDING for images that can be decoded, NONE otherwise
+     */
+    public ThumbnailStatus initialStatus(String mediaType, String extension) {
+        return "image".equals(mediaType) && extension != null && SUPPORTED_EXTENSIONS.contains(extension)
+                ? ThumbnailStatus.PENDING
+                : ThumbnailStatus.NONE;
+    }
+
+    /**
+     * Generate the derivatives of a file once the current transaction commits
+     *
+     * @param fileInfo the saved file
+     */
+    public void requestThumbnails(FileInfo fileInfo) {
+        if (fileInfo.getThumbnailStatus() != ThumbnailStatus.PENDING) {
+            return;
+        }
+        
+        UUID fileId = fileInfo.getId();
+        String objectName = fileInfo.getFilePath();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(fileId, objectName);
+                }
+            });
+        } else {
+            submit(fileId, objectName);
+        }
+    }
+
+    /**
+     * Get the object name of a derivative
+     *
+     * @param objectName the original object name
+     * @param variant the variant
+     * @return the derivative object name
+     */
+    public String derivativeName(String objectName, Variant variant) {
+        return objectName + "." + variant.name().toLowerCase(Locale.ROOT) + ".jpg";
+    }
+
+    /**
+     * Get the object names of all derivatives of an object
+     *
+     * @param objectName the original object name
+     * @return the derivative object names
+     */
+    public List<String> derivativeNames(String objectName) {
+        return Arrays.stream(Variant.values())
+                .map(variant -> derivativeName(objectName, variant))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the original object name of a derivative
+     *
+     * @param objectName the object name
+     * @return the original object name, or null if the object is not a derivative
+     */
+    public String originalName(String objectName) {
+        for (Variant variant : Variant.values()) {
+            String suffix = derivativeName("", variant);
+            if (objectName.endsWith(suffix)) {
+                return objectName.substring(0, objectName.length() - suffix.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copy the derivatives of an object to a copy of it
+     *
+     * @param sourceObjectName the source object name
+     * @param targetObjectName the object name of the copy
+     * @return true if all derivatives were copied; otherwise the copy has to generate its own
+     */
+    public boolean copyDerivatives(String sourceObjectName, String targetObjectName) {
+        try {
+            for (Variant variant : Variant.values()) {
+                storageService.copyFile(derivativeName(sourceObjectName, variant), derivativeName(targetObjectName, variant));
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to copy thumbnails of {}: {}", sourceObjectName, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Retry thumbnails whose generation never started or whose worker died
+     */
+    @Scheduled(fixedDelayString = "${file.thumbnail.resume-interval-ms:60000}")
+    public void resumeStaleThumbnails() {
+        LocalDateTime staleBefore = LocalDateTime.now().minusSeconds(staleAfterSeconds);
+        List<FileInfo> stale = fileInfoRepository.findByThumbnailStatusAndUpdatedAtBeforeAndIsDeletedFalse(
+                ThumbnailStatus.PENDING, staleBefore, PageRequest.of(0, resumeBatchSize));
+        
+        for (FileInfo fileInfo : stale) {
+            // Touch the row so it is not picked up again while it waits in the queue
+            fileInfoRepository.updateThumbnailStatus(fileInfo.getId(), ThumbnailStatus.PENDING, LocalDateTime.now());
+            submit(fileInfo.getId(), fileInfo.getFilePath());
+        }
+    }
+
+    /**
+     * Generate and store all derivatives of an image
+     *
+     * @param fileId the file ID
+     * @param objectName the original object name
+     */
+    public void generate(UUID fileId, String objectName) {
+        try {
+            BufferedImage source = decode(objectName, Variant.PREVIEW.getMaxSize());
+            
+            // Each variant is scaled from the previous, larger one
+            BufferedImage current = source;
+            for (Variant variant : List.of(Variant.PREVIEW, Variant.THUMBNAIL)) {
+                current = scaleToFit(current, variant.getMaxSize());
+                storageService.uploadBytes(encodeJpeg(current), derivativeName(objectName, variant), "image/jpeg");
+            }
+            
+            fileInfoRepository.updateThumbnailStatus(fileId, ThumbnailStatus.READY, LocalDateTime.now());
+        } catch (Exception e) {
+            log.warn("Failed to generate thumbnails for file {}: {}", fileId, e.getMessage());
+            fileInfoRepository.updateThumbnailStatus(fileId, ThumbnailStatus.FAILED, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Hand a file to the pool. If the pool is saturated the file stays pending and
+     * is picked up by {@link #resumeStaleThumbnails()}.
+     */
+    private void submit(UUID fileId, String objectName) {
+        try {
+            thumbnailExecutor.execute(() -> generate(fileId, objectName));
+        } catch (TaskRejectedException e) {
+            log.warn("Thumbnail executor is saturated, file {} will be retried later", fileId);
+        }
+    }
+
+    /**
+     * Decode an image, subsampling so the result is no more than twice the target size
+     */
+    private BufferedImage decode(String objectName, int targetSize) throws IOException {
+        try (InputStream in = storageService.downloadFile(objectName);
+             ImageInputStream iis = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("Image is too large: " + width + "x" + height);
+                }
+                
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (targetSize * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scale an image to fit a square box, flattening transparency onto white
+     */
+    private BufferedImage scaleToFit(BufferedImage image, int maxSize) {
+        double scale = Math.min(1.0, (double) maxSize / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream ios = new MemoryCacheImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
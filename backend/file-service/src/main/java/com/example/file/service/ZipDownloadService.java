@@ -0,0 +1,251 @@
+package com.example.file.service;
+
+import com.example.common.exception.BusinessException;
+import com.example.file.entity.FileInfo;
+import com.example.file.repository.FileInfoRepository;
+import com.example.file.storage.StorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Service for downloading folders and selections as a single ZIP archive.
+ *
+ * The archive is planned up front from metadata only, then written straight to the
+ * response while objects are read from storage one after another. A small window of
+ * upcoming objects is opened ahead of the writer so each entry does not wait for a
+ * storage round trip. Nothing is buffered beyond the copy buffer and the open streams,
+ * so memory use does not depend on the archive size.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ZipDownloadService {
+
+    private static final Set<String> COMPRESSED_MEDIA_TYPES = Set.of("image", "video", "audio");
+
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "zst", "jar", "war",
+            "docx", "xlsx", "pptx", "odt", "ods", "odp", "epub", "pdf");
+
+    private static final Set<String> UNCOMPRESSED_EXTENSIONS = Set.of("bmp", "svg", "tif", "tiff", "wav");
+
+    private static final Pattern UNSAFE_NAME_CHARACTERS = Pattern.compile("[/\\\\\\p{Cntrl}]");
+
+    private static final Pattern DOTS_ONLY = Pattern.compile("[.\\s]*");
+
+    private final FileInfoRepository fileInfoRepository;
+    private final StorageService storageService;
+    private final ThreadPoolTaskExecutor zipPrefetchExecutor;
+
+    @Value("${file.tree.max-depth:100}")
+    private int maxTreeDepth;
+
+    @Value("${file.zip.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${file.zip.prefetch:2}")
+    private int prefetch;
+
+    /**
+     * An entry of a planned archive
+     *
+     * @param path the path inside the archive, ending with / for folders
+     * @param objectName the storage object name, null for folders
+     * @param modifiedAt the last modification time
+     * @param store whether the content is already compressed and should not be deflated
+     */
+    public record ZipItem(String path, String objectName, LocalDateTime modifiedAt, boolean store) {
+    }
+
+    /**
+     * A planned archive
+     *
+     * @param archiveName the file name of the archive
+     * @param items the archive entries in write order
+     */
+    public record ZipPlan(String archiveName, List<ZipItem> items) {
+    }
+
+    /**
+     * Plan an archive of the given files and folders. Folders are included with everything below them.
+     *
+     * @param roots the selected files and folders, already access checked
+     * @param archiveName the archive name (optional)
+     * @return the archive plan
+     */
+    @Transactional(readOnly = true)
+    public ZipPlan plan(List<FileInfo> roots, String archiveName) {
+        List<ZipItem> items = new ArrayList<>();
+        Set<String> usedPaths = new HashSet<>();
+        
+        for (FileInfo root : roots) {
+            String rootPath = uniquePath(usedPaths, "", root);
+            addItem(items, rootPath, root);
+            
+            if (root.isFolder()) {
+                Map<UUID, String> folderPaths = new HashMap<>();
+                folderPaths.put(root.getId(), rootPath);
+                
+                // Descendants come breadth first, so every parent path is known before its children
+                for (FileInfo child : fileInfoRepository.findSubtree(root.getId(), false, maxTreeDepth)) {
+                    String parentPath = folderPaths.get(child.getParentFolderId());
+                    if (parentPath == null) {
+                        continue;
+                    }
+                    
+                    String path = uniquePath(usedPaths, parentPath, child);
+                    if (child.isFolder()) {
+                        folderPaths.put(child.getId(), path);
+                    }
+                    addItem(items, path, child);
+                }
+            }
+        }
+        
+        String name = archiveName != null && !archiveName.isBlank() ? archiveName
+                : roots.size() == 1 ? roots.get(0).getOriginalName() : "download";
+        return new ZipPlan(name.toLowerCase(Locale.ROOT).endsWith(".zip") ? name : name + ".zip", items);
+    }
+
+    /**
+     * Write a planned archive to an output stream
+     *
+     * @param items the archive entries
+     * @param out the output stream
+     * @throws IOException if reading from storage or writing the archive fails
+     */
+    public void write(List<ZipItem> items, OutputStream out) throws IOException {
+        Deque<CompletableFuture<InputStream>> window = new ArrayDeque<>();
+        int next = 0;
+        
+        ZipOutputStream zip = new ZipOutputStream(out);
+        try {
+            for (ZipItem item : items) {
+                ZipEntry entry = new ZipEntry(item.path());
+                if (item.modifiedAt() != null) {
+                    entry.setTime(item.modifiedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                }
+                
+                if (item.objectName() == null) {
+                    zip.putNextEntry(entry);
+                    zip.closeEntry();
+                    continue;
+                }
+                
+                // Keep up to prefetch objects open ahead of the one being written
+                while (window.size() <= prefetch && next < items.size()) {
+                    ZipItem upcoming = items.get(next++);
+                    if (upcoming.objectName() != null) {
+                        window.addLast(CompletableFuture.supplyAsync(
+                                () -> storageService.downloadFile(upcoming.objectName()), zipPrefetchExecutor));
+                    }
+                }
+                
+                // Stored entries need the CRC up front, so already compressed content is written
+                // with deflate level 0 instead, which copies the bytes without compressing them
+                zip.setLevel(item.store() ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+                zip.putNextEntry(entry);
+                try (InputStream in = await(window.removeFirst(), item)) {
+                    in.transferTo(zip);
+                }
+                zip.closeEntry();
+            }
+            zip.finish();
+        } finally {
+            // Close streams that were opened ahead if the archive was aborted
+            for (CompletableFuture<InputStream> pending : window) {
+                pending.thenAccept(this::closeQuietly);
+            }
+        }
+    }
+
+    private InputStream await(CompletableFuture<InputStream> future, ZipItem item) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + item.path(), e);
+        } catch (ExecutionException e) {
+            log.error("Failed to read {} for ZIP download: {}", item.objectName(), e.getCause().getMessage());
+            throw new IOException("Failed to read " + item.path(), e.getCause());
+        }
+    }
+
+    private void addItem(List<ZipItem> items, String path, FileInfo file) {
+        if (items.size() >= maxEntries) {
+            throw new BusinessException("Too many files to download as one archive, the limit is " + maxEntries);
+        }
+        
+        items.add(new ZipItem(path, file.isFolder() ? null : file.getFilePath(), file.getUpdatedAt(),
+                !file.isFolder() && isCompressed(file)));
+    }
+
+    /**
+     * Build an entry path, renaming duplicates within the same folder
+     */
+    private String uniquePath(Set<String> usedPaths, String parentPath, FileInfo file) {
+        String name = safeName(file.getOriginalName());
+        String suffix = file.isFolder() ? "/" : "";
+        
+        String path = parentPath + name + suffix;
+        for (int i = 1; !usedPaths.add(path.toLowerCase(Locale.ROOT)); i++) {
+            int dot = file.isFolder() ? -1 : name.lastIndexOf('.');
+            String base = dot > 0 ? name.substring(0, dot) : name;
+            String extension = dot > 0 ? name.substring(dot) : "";
+            path = parentPath + base + " (" + i + ")" + extension + suffix;
+        }
+        return path;
+    }
+
+    /**
+     * Make a file name safe to use as one path segment of an entry. Separators and control
+     * characters are replaced, and names such as ".." that an extractor would resolve
+     * outside the archive folder are renamed.
+     */
+    private String safeName(String originalName) {
+        String name = UNSAFE_NAME_CHARACTERS.matcher(originalName).replaceAll("_");
+        return DOTS_ONLY.matcher(name).matches() ? "_" + name.strip() : name;
+    }
+
+    private boolean isCompressed(FileInfo file) {
+        String extension = file.getExtension() != null ? file.getExtension().toLowerCase(Locale.ROOT) : "";
+        if (UNCOMPRESSED_EXTENSIONS.contains(extension)) {
+            return false;
+        }
+        return COMPRESSED_EXTENSIONS.contains(extension) || COMPRESSED_MEDIA_TYPES.contains(file.getMediaType());
+    }
+
+    private void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            log.debug("Failed to close prefetched stream: {}", e.getMessage());
+        }
+    }
+}
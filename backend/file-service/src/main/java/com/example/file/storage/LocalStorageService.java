@@ -0,0 +1,417 @@
+package com.example.file.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Storage backend on the local filesystem.
+ *
+ * Objects are spread over two levels of shard directories derived from a hash of the
+ * object name, so no directory grows beyond a few thousand entries. Writes go to a
+ * temporary file that is atomically moved into place. Uploads that are already on
+ * disk are moved rather than copied, and copies use {@link FileChannel#transferTo},
+ * which lets the kernel copy without passing the bytes through the JVM.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.type", havingValue = "local")
+@Slf4j
+public class LocalStorageService implements StorageService {
+
+    private static final String CONTENT_TYPE_ATTRIBUTE = "user.content-type";
+    // URL-encoded object names never contain ~, so temporary files cannot clash with objects
+    private static final String TEMP_PREFIX = "~";
+
+    private final Path rootDir;
+
+    public LocalStorageService(@Value("${storage.local.root-dir:./data/storage}") String rootDir) throws IOException {
+        this.rootDir = Paths.get(rootDir).toAbsolutePath().normalize();
+        Files.createDirectories(this.rootDir);
+        log.info("Using local storage in {}", this.rootDir);
+    }
+
+    @Override
+    public String putObject(String objectName, InputStream data, long size, String contentType) {
+        Path target = resolve(objectName);
+        Path temp = tempFile(target);
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            // Channel to channel transfers avoid an extra copy when the source is a file
+            ReadableByteChannel in = data instanceof FileInputStream fileIn ? fileIn.getChannel() : Channels.newChannel(data);
+            long written = 0;
+            long transferred;
+            while ((transferred = out.transferFrom(in, written, Math.max(size - written, 1 << 20))) > 0) {
+                written += transferred;
+            }
+            if (size >= 0 && written != size) {
+                throw new IOException("Expected " + size + " bytes but received " + written);
+            }
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            log.error("Error writing file to local storage: {}", e.getMessage(), e);
+            throw new RuntimeException("Error writing file to local storage", e);
+        }
+        
+        commit(temp, target, contentType);
+        return objectName;
+    }
+
+    /**
+     * Store an uploaded file. Uploads spooled to disk are moved into place rather than copied.
+     */
+    @Override
+    public String uploadFile(MultipartFile file, String objectName) {
+        Path target = resolve(objectName);
+        Path temp = tempFile(target);
+        try {
+            file.transferTo(temp);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            log.error("Error writing file to local storage: {}", e.getMessage(), e);
+            throw new RuntimeException("Error writing file to local storage", e);
+        }
+        
+        commit(temp, target, file.getContentType());
+        return objectName;
+    }
+
+    @Override
+    public InputStream downloadFile(String objectName) {
+        try {
+            return Files.newInputStream(resolve(objectName));
+        } catch (IOException e) {
+            log.error("Error reading file from local storage: {}", e.getMessage(), e);
+            throw new RuntimeException("Error reading file from local storage", e);
+        }
+    }
+
+    @Override
+    public InputStream downloadRange(String objectName, long offset, long length) {
+        try {
+            FileChannel channel = FileChannel.open(resolve(objectName), StandardOpenOption.READ);
+            channel.position(offset);
+            return Channels.newInputStream(new BoundedChannel(channel, length));
+        } catch (IOException e) {
+            log.error("Error reading file range from local storage: {}", e.getMessage(), e);
+            throw new RuntimeException("Error reading file range from local storage", e);
+        }
+    }
+
+    @Override
+    public void deleteFile(String objectName) {
+        try {
+            Files.deleteIfExists(resolve(objectName));
+        } catch (IOException e) {
+            log.error("Error deleting file from local storage: {}", e.getMessage(), e);
+            throw new RuntimeException("Error deleting file from local storage", e);
+        }
+    }
+
+    @Override
+    public List<String> deleteFiles(List<String> objectNames) {
+        List<String> failed = new ArrayList<>();
+        for (String objectName : objectNames) {
+            try {
+                Files.deleteIfExists(resolve(objectName));
+            } catch (IOException e) {
+                log.warn("Error deleting object {} from local storage: {}", objectName, e.getMessage());
+                failed.add(objectName);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * List objects below a prefix. Shards are walked lazily, so the whole tree is never held in memory.
+     */
+    @Override
+    public Stream<StoredObject> listObjects(String prefix) {
+        try {
+            return Files.walk(rootDir, 3)
+                    .filter(path -> rootDir.relativize(path).getNameCount() == 3)
+                    .filter(path -> !path.getFileName().toString().startsWith(TEMP_PREFIX))
+                    .map(path -> URLDecoder.decode(path.getFileName().toString(), StandardCharsets.UTF_8))
+                    .filter(objectName -> prefix == null || objectName.startsWith(prefix))
+                    .map(this::statFile)
+                    .filter(object -> object != null);
+        } catch (IOException e) {
+            log.error("Error listing files from local storage: {}", e.getMessage(), e);
+            throw new RuntimeException("Error listing files from local storage", e);
+        }
+    }
+
+    /**
+     * List one page of objects below a prefix. Pages follow the shard directory layout,
+     * and the token is the shard path of the last object visited, so whole shards before
+     * it are skipped without being read.
+     *
+     * @param prefix the object name prefix
+     * @param continuationToken the token of the previous page, or null for the first page
+     * @param maxKeys the maximum number of objects on the page
+     * @return the page
+     */
+    @Override
+    public ObjectPage listObjectsPage(String prefix, String continuationToken, int maxKeys) {
+        String[] after = continuationToken != null ? continuationToken.split("/", 3) : null;
+        if (after != null && after.length != 3) {
+            throw new IllegalArgumentException("Invalid continuation token: " + continuationToken);
+        }
+        
+        Iterator<Path> paths = listSorted(rootDir)
+                .filter(level1 -> after == null || level1.getFileName().toString().compareTo(after[0]) >= 0)
+                .flatMap(level1 -> listSorted(level1)
+                        .filter(level2 -> after == null || shardPath(level2).compareTo(after[0] + "/" + after[1]) >= 0))
+                .flatMap(this::listSorted)
+                .filter(path -> !path.getFileName().toString().startsWith(TEMP_PREFIX))
+                .filter(path -> continuationToken == null || shardPath(path).compareTo(continuationToken) > 0)
+                .iterator();
+        
+        List<StoredObject> objects = new ArrayList<>(maxKeys);
+        String last = null;
+        while (objects.size() < maxKeys && paths.hasNext()) {
+            Path path = paths.next();
+            last = shardPath(path);
+            String objectName = URLDecoder.decode(path.getFileName().toString(), StandardCharsets.UTF_8);
+            if (prefix == null || objectName.startsWith(prefix)) {
+                StoredObject object = statFile(objectName);
+                if (object != null) {
+                    objects.add(object);
+                }
+            }
+        }
+        
+        return new ObjectPage(objects, paths.hasNext() ? last : null);
+    }
+
+    @Override
+    public StoredObject statFile(String objectName) {
+        Path path = resolve(objectName);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            String etag = Long.toHexString(attributes.size()) + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis());
+            return new StoredObject(objectName, attributes.size(), readContentType(path),
+                    attributes.lastModifiedTime().toInstant(), etag);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.error("Error reading file metadata from local storage: {}", e.getMessage(), e);
+            throw new RuntimeException("Error reading file metadata from local storage", e);
+        }
+    }
+
+    /**
+     * Copy an object with an in-kernel file to file transfer
+     */
+    @Override
+    public void copyFile(String sourceObjectName, String targetObjectName) {
+        Path source = resolve(sourceObjectName);
+        Path target = resolve(targetObjectName);
+        Path temp = tempFile(target);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            log.error("Error copying file in local storage: {}", e.getMessage(), e);
+            throw new RuntimeException("Error copying file in local storage", e);
+        }
+        
+        commit(temp, target, readContentType(source));
+    }
+
+    /**
+     * List a directory in name order. Only one directory is held in memory at a time.
+     */
+    private Stream<Path> listSorted(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return Stream.empty();
+        }
+        try (Stream<Path> entries = Files.list(dir)) {
+            return entries.sorted().toList().stream();
+        } catch (NoSuchFileException e) {
+            return Stream.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the path of an entry relative to the root, with / as separator
+     */
+    private String shardPath(Path path) {
+        StringBuilder shardPath = new StringBuilder();
+        for (Path part : rootDir.relativize(path)) {
+            if (shardPath.length() > 0) {
+                shardPath.append('/');
+            }
+            shardPath.append(part);
+        }
+        return shardPath.toString();
+    }
+
+    /**
+     * Map an object name to its file: two shard levels from the name's hash, then the URL-encoded name
+     */
+    private Path resolve(String objectName) {
+        if (objectName == null || objectName.isEmpty() || objectName.equals(".") || objectName.equals("..")) {
+            throw new IllegalArgumentException("Invalid object name: " + objectName);
+        }
+        
+        String shard = shardPrefix(objectName);
+        String fileName = URLEncoder.encode(objectName, StandardCharsets.UTF_8);
+        return rootDir.resolve(shard.substring(0, 2)).resolve(shard.substring(2, 4)).resolve(fileName);
+    }
+
+    private Path tempFile(Path target) {
+        try {
+            Files.createDirectories(target.getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return target.resolveSibling(TEMP_PREFIX + UUID.randomUUID());
+    }
+
+    /**
+     * Record the content type and move a finished temporary file into place
+     */
+    private void commit(Path temp, Path target, String contentType) {
+        try {
+            writeContentType(temp, contentType);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            log.error("Error writing file to local storage: {}", e.getMessage(), e);
+            throw new RuntimeException("Error writing file to local storage", e);
+        }
+    }
+
+    private void writeContentType(Path path, String contentType) {
+        UserDefinedFileAttributeView view = Files.getFileAttributeView(path, UserDefinedFileAttributeView.class);
+        if (contentType == null || view == null) {
+            return;
+        }
+        try {
+            view.write(CONTENT_TYPE_ATTRIBUTE, StandardCharsets.UTF_8.encode(contentType));
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Extended attributes are not supported, content type is not stored: {}", e.getMessage());
+        }
+    }
+
+    private String readContentType(Path path) {
+        UserDefinedFileAttributeView view = Files.getFileAttributeView(path, UserDefinedFileAttributeView.class);
+        try {
+            if (view != null && view.list().contains(CONTENT_TYPE_ATTRIBUTE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(view.size(CONTENT_TYPE_ATTRIBUTE));
+                view.read(CONTENT_TYPE_ATTRIBUTE, buffer);
+                buffer.flip();
+                return StandardCharsets.UTF_8.decode(buffer).toString();
+            }
+            return Files.probeContentType(path);
+        } catch (IOException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary file {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Get the first four hex characters of the SHA-256 of a value, which pick its two shard directories
+     */
+    private static String shardPrefix(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Read-only channel that stops after a fixed number of bytes
+     */
+    private static final class BoundedChannel implements ReadableByteChannel {
+
+        private final FileChannel channel;
+        private long remaining;
+
+        BoundedChannel(FileChannel channel, long length) {
+            this.channel = channel;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int limit = dst.limit();
+            if (dst.remaining() > remaining) {
+                dst.limit(dst.position() + (int) remaining);
+            }
+            int read;
+            try {
+                read = channel.read(dst);
+            } finally {
+                dst.limit(limit);
+            }
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package com.example.file.storage;
+
+import io.minio.*;
+import io.minio.errors.*;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import io.minio.messages.ListBucketResultV2;
+import io.minio.messages.Part;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import io.minio.http.Method;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Storage backend on MinIO or any other S3 compatible object store
+ */
+@Service
+@ConditionalOnProperty(name = "storage.type", havingValue = "minio", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class MinioStorageService implements StorageService {
+
+    private static final int MAX_PARTS = 10000;
+
+    private final MinioClient minioClient;
+    private final ThreadPoolTaskExecutor storageListingExecutor;
+    private final MultipartMinioClient multipartMinioClient;
+    private final ThreadPoolTaskExecutor multipartUploadExecutor;
+
+    @Value("${minio.bucket-name}")
+    private String bucketName;
+
+    @Value("${minio.presigned-url-expiry-seconds:900}")
+    private int presignedUrlExpirySeconds;
+
+    @Value("${storage.listing.page-size:1000}")
+    private int listPageSize;
+
+    @Value("${storage.multipart.threshold-bytes:67108864}")
+    private long multipartThreshold;
+
+    @Value("${storage.multipart.part-size-bytes:16777216}")
+    private long multipartPartSize;
+
+    @Value("${storage.multipart.max-parts-in-flight:4}")
+    private int multipartMaxPartsInFlight;
+
+    @Value("${storage.multipart.part-attempts:3}")
+    private int multipartPartAttempts;
+
+    @Value("${storage.multipart.retry-backoff-ms:200}")
+    private long multipartRetryBackoffMs;
+
+    /**
+     * Initialize MinIO bucket if it doesn't exist
+     */
+    public void initializeBucket() {
+        try {
+            boolean bucketExists = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
+            if (!bucketExists) {
+                minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
+                log.info("Created MinIO bucket: {}", bucketName);
+            }
+        } catch (Exception e) {
+            log.error("Error initializing MinIO bucket: {}", e.getMessage(), e);
+            throw new RuntimeException("Error initializing MinIO bucket", e);
+        }
+    }
+
+    /**
+     * Upload an object to MinIO
+     *
+     * @param objectName the object name in MinIO
+     * @param data the content
+     * @param size the content length in bytes
+     * @param contentType the content type
+     * @return the object name
+     */
+    @Override
+    public String putObject(String objectName, InputStream data, long size, String contentType) {
+        if (size >= multipartThreshold) {
+            putObjectInParts(objectName, data, size, contentType);
+            return objectName;
+        }
+        
+        try {
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .stream(data, size, -1)
+                            .contentType(contentType)
+                            .build());
+            return objectName;
+        } catch (Exception e) {
+            log.error("Error uploading file to MinIO: {}", e.getMessage(), e);
+            throw new RuntimeException("Error uploading file to MinIO", e);
+        }
+    }
+
+    /**
+     * Upload a large object as parts that are sent concurrently. Parts are read from the
+     * source in order, and only a bounded number are buffered at a time. Each part carries
+     * an MD5 checksum and is retried on its own; the object only appears once every part
+     * has arrived, and a failed upload is aborted so no parts are left behind.
+     *
+     * @param objectName the object name
+     * @param data the content
+     * @param size the content length in bytes
+     * @param contentType the content type
+     */
+    private void putObjectInParts(String objectName, InputStream data, long size, String contentType) {
+        // S3 allows at most 10000 parts, so very large objects get larger parts
+        long partSize = Math.max(multipartPartSize, (size + MAX_PARTS - 1) / MAX_PARTS);
+        int partCount = (int) ((size + partSize - 1) / partSize);
+        
+        String uploadId;
+        try {
+            uploadId = multipartMinioClient.createUpload(bucketName, objectName, contentType);
+        } catch (Exception e) {
+            log.error("Error starting multipart upload to MinIO: {}", e.getMessage(), e);
+            throw new RuntimeException("Error uploading file to MinIO", e);
+        }
+        
+        Semaphore inFlight = new Semaphore(multipartMaxPartsInFlight);
+        List<CompletableFuture<Part>> parts = new ArrayList<>(partCount);
+        try {
+            for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+                inFlight.acquire();
+                if (parts.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    break;
+                }
+                
+                int length = (int) Math.min(partSize, size - (partNumber - 1) * partSize);
+                byte[] buffer = data.readNBytes(length);
+                if (buffer.length != length) {
+                    throw new IOException("Expected " + size + " bytes but the stream ended early");
+                }
+                
+                int number = partNumber;
+                parts.add(CompletableFuture
+                        .supplyAsync(() -> uploadPart(objectName, uploadId, number, buffer), multipartUploadExecutor)
+                        .whenComplete((part, error) -> inFlight.release()));
+            }
+            
+            Part[] uploaded = new Part[parts.size()];
+            for (int i = 0; i < uploaded.length; i++) {
+                uploaded[i] = parts.get(i).join();
+            }
+            multipartMinioClient.completeUpload(bucketName, objectName, uploadId, uploaded);
+        } catch (Exception e) {
+            parts.forEach(part -> part.cancel(false));
+            abortQuietly(objectName, uploadId);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Error uploading file to MinIO in parts: {}", e.getMessage(), e);
+            throw new RuntimeException("Error uploading file to MinIO", e);
+        }
+    }
+
+    /**
+     * Upload one part, retrying with backoff
+     */
+    private Part uploadPart(String objectName, String uploadId, int partNumber, byte[] buffer) {
+        String contentMd5;
+        try {
+            contentMd5 = Base64.getEncoder().encodeToString(MessageDigest.getInstance("MD5").digest(buffer));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return multipartMinioClient.uploadPart(bucketName, objectName, uploadId, partNumber, buffer, contentMd5);
+            } catch (Exception e) {
+                if (attempt >= multipartPartAttempts) {
+                    throw new CompletionException(e);
+                }
+                log.warn("Retrying part {} of {} after attempt {} failed: {}", partNumber, objectName, attempt, e.getMessage());
+                try {
+                    Thread.sleep(multipartRetryBackoffMs << (attempt - 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(interrupted);
+                }
+            }
+        }
+    }
+
+    private void abortQuietly(String objectName, String uploadId) {
+        try {
+            multipartMinioClient.abortUpload(bucketName, objectName, uploadId);
+        } catch (Exception e) {
+            log.warn("Failed to abort multipart upload {} of {}: {}", uploadId, objectName, e.getMessage());
+        }
+    }
+
+    /**
+     * Download a file from MinIO
+     *
+     * @param objectName the object name in MinIO
+     * @return the input stream
+     */
+    @Override
+    public InputStream downloadFile(String objectName) {
+        try {
+            return minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .build());
+        } catch (Exception e) {
+            log.error("Error downloading file from MinIO: {}", e.getMessage(), e);
+            throw new RuntimeException("Error downloading file from MinIO", e);
+        }
+    }
+
+    /**
+     * Download part of a file from MinIO
+     *
+     * @param objectName the object name in MinIO
+     * @param offset the first byte to read
+     * @param length the number of bytes to read
+     * @return the input stream
+     */
+    @Override
+    public InputStream downloadRange(String objectName, long offset, long length) {
+        try {
+            return minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .offset(offset)
+                            .length(length)
+                            .build());
+        } catch (Exception e) {
+            log.error("Error downloading file range from MinIO: {}", e.getMessage(), e);
+            throw new RuntimeException("Error downloading file range from MinIO", e);
+        }
+    }
+
+    /**
+     * Delete a file from MinIO
+     *
+     * @param objectName the object name in MinIO
+     */
+    @Override
+    public void deleteFile(String objectName) {
+        try {
+            minioClient.removeObject(
+                    RemoveObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .build());
+        } catch (Exception e) {
+            log.error("Error deleting file from MinIO: {}", e.getMessage(), e);
+            throw new RuntimeException("Error deleting file from MinIO", e);
+        }
+    }
+
+    /**
+     * Delete multiple files from MinIO using multi-object delete requests
+     *
+     * @param objectNames the object names in MinIO
+     * @return the object names that could not be deleted
+     */
+    @Override
+    public List<String> deleteFiles(List<String> objectNames) {
+        List<String> failed = new ArrayList<>();
+        if (objectNames.isEmpty()) {
+            return failed;
+        }
+        try {
+            List<DeleteObject> objects = new ArrayList<>(objectNames.size());
+            for (String objectName : objectNames) {
+                objects.add(new DeleteObject(objectName));
+            }
+            // The result is lazy: iterating it is what sends the delete requests
+            Iterable<Result<DeleteError>> results = minioClient.removeObjects(
+                    RemoveObjectsArgs.builder()
+                            .bucket(bucketName)
+                            .objects(objects)
+                            .build());
+            for (Result<DeleteError> result : results) {
+                DeleteError error = result.get();
+                log.warn("Error deleting object {} from MinIO: {}", error.objectName(), error.message());
+                failed.add(error.objectName());
+            }
+            return failed;
+        } catch (Exception e) {
+            log.error("Error deleting files from MinIO: {}", e.getMessage(), e);
+            throw new RuntimeException("Error deleting files from MinIO", e);
+        }
+    }
+
+    /**
+     * List objects below a prefix. Pages are fetched from MinIO as the stream is consumed,
+     * with the next page requested while the current one is processed.
+     *
+     * @param prefix the object name prefix
+     * @return the objects, ordered by name
+     */
+    @Override
+    public Stream<StoredObject> listObjects(String prefix) {
+        PrefetchingObjectIterator objects = new PrefetchingObjectIterator(
+                token -> listObjectsPage(prefix, token, listPageSize), storageListingExecutor);
+        
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(objects, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(objects::close);
+    }
+
+    /**
+     * List one page of objects below a prefix. The token is the last object name of the
+     * previous page, passed to MinIO as start-after.
+     *
+     * @param prefix the object name prefix
+     * @param continuationToken the token of the previous page, or null for the first page
+     * @param maxKeys the maximum number of objects on the page
+     * @return the page, ordered by name
+     */
+    @Override
+    public ObjectPage listObjectsPage(String prefix, String continuationToken, int maxKeys) {
+        try {
+            // One request per page; the truncation flag tells whether another page follows
+            ListBucketResultV2 result = multipartMinioClient.listPage(bucketName, prefix, continuationToken, maxKeys);
+            List<StoredObject> objects = new ArrayList<>(result.contents().size());
+            for (Item item : result.contents()) {
+                Instant lastModified = item.lastModified() != null ? item.lastModified().toInstant() : null;
+                objects.add(new StoredObject(item.objectName(), item.size(), null, lastModified, item.etag()));
+            }
+            
+            String nextToken = result.isTruncated() && !objects.isEmpty() ? objects.get(objects.size() - 1).objectName() : null;
+            return new ObjectPage(objects, nextToken);
+        } catch (Exception e) {
+            log.error("Error listing files from MinIO: {}", e.getMessage(), e);
+            throw new RuntimeException("Error listing files from MinIO", e);
+        }
+    }
+
+    /**
+     * Copy an object inside MinIO without downloading it
+     *
+     * @param sourceObjectName the source object name
+     * @param targetObjectName the target object name
+     */
+    @Override
+    public void copyFile(String sourceObjectName, String targetObjectName) {
+        try {
+            minioClient.copyObject(
+                    CopyObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(targetObjectName)
+                            .source(CopySource.builder()
+                                    .bucket(bucketName)
+                                    .object(sourceObjectName)
+                                    .build())
+                            .build());
+        } catch (Exception e) {
+            log.error("Error copying file in MinIO: {}", e.getMessage(), e);
+            throw new RuntimeException("Error copying file in MinIO", e);
+        }
+    }
+
+    /**
+     * Generate a presigned URL that lets a client upload an object directly to MinIO
+     *
+     * @param objectName the object name in MinIO
+     * @return the presigned PUT URL
+     */
+    @Override
+    public Optional<String> getPresignedUploadUrl(String objectName) {
+        try {
+            return Optional.of(minioClient.getPresignedObjectUrl(
+                    GetPresignedObjectUrlArgs.builder()
+                            .method(Method.PUT)
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .expiry(presignedUrlExpirySeconds, TimeUnit.SECONDS)
+                            .build()));
+        } catch (Exception e) {
+            log.error("Error generating presigned upload URL: {}", e.getMessage(), e);
+            throw new RuntimeException("Error generating presigned upload URL", e);
+        }
+    }
+
+    /**
+     * Generate a presigned URL that lets a client download an object directly from MinIO
+     *
+     * @param objectName the object name in MinIO
+     * @param contentDisposition the Content-Disposition header MinIO should return
+     * @return the presigned GET URL
+     */
+    @Override
+    public Optional<String> getPresignedDownloadUrl(String objectName, String contentDisposition) {
+        try {
+            return Optional.of(minioClient.getPresignedObjectUrl(
+                    GetPresignedObjectUrlArgs.builder()
+                            .method(Method.GET)
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .expiry(presignedUrlExpirySeconds, TimeUnit.SECONDS)
+                            .extraQueryParams(Map.of("response-content-disposition", contentDisposition))
+                            .build()));
+        } catch (Exception e) {
+            log.error("Error generating presigned download URL: {}", e.getMessage(), e);
+            throw new RuntimeException("Error generating presigned download URL", e);
+        }
+    }
+
+    /**
+     * Get the lifetime of presigned URLs
+     *
+     * @return the expiry in seconds
+     */
+    @Override
+    public int getPresignedUrlExpirySeconds() {
+        return presignedUrlExpirySeconds;
+    }
+
+    /**
+     * Get object metadata from MinIO
+     *
+     * @param objectName the object name in MinIO
+     * @return the object metadata, or null if the object does not exist
+     */
+    @Override
+    public StoredObject statFile(String objectName) {
+        try {
+            StatObjectResponse stat = minioClient.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .build());
+            Instant lastModified = stat.lastModified() != null ? stat.lastModified().toInstant() : null;
+            return new StoredObject(stat.object(), stat.size(), stat.contentType(), lastModified, stat.etag());
+        } catch (ErrorResponseException e) {
+            if (e.errorResponse().code().equals("NoSuchKey")) {
+                return null;
+            }
+            log.error("Error reading file metadata from MinIO: {}", e.getMessage(), e);
+            throw new RuntimeException("Error reading file metadata from MinIO", e);
+        } catch (Exception e) {
+            log.error("Error reading file metadata from MinIO: {}", e.getMessage(), e);
+            throw new RuntimeException("Error reading file metadata from MinIO", e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.file.storage;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.ListBucketResultV2;
+import io.minio.messages.Part;
+
+/**
+ * MinIO client exposing lower-level operations the SDK only uses internally: the
+ * individual steps of a multipart upload, so parts can be uploaded concurrently, and
+ * single listing requests, so a page can be read with its truncation flag.
+ */
+public class MultipartMinioClient extends MinioAsyncClient {
+
+    public MultipartMinioClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    /**
+     * Start a multipart upload
+     *
+     * @param bucketName the bucket name
+     * @param objectName the object name
+     * @param contentType the content type of the object
+     * @return the upload ID
+     * @throws Exception if the upload cannot be started
+     */
+    public String createUpload(String bucketName, String objectName, String contentType) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        if (contentType != null) {
+            headers.put("Content-Type", contentType);
+        }
+        return createMultipartUploadAsync(bucketName, null, objectName, headers, HashMultimap.create()).get().result().uploadId();
+    }
+
+    /**
+     * Upload one part. The store verifies the content against the MD5 checksum.
+     *
+     * @param bucketName the bucket name
+     * @param objectName the object name
+     * @param uploadId the upload ID
+     * @param partNumber the part number, starting at 1
+     * @param data the part content
+     * @param contentMd5 the base64 encoded MD5 checksum of the content
+     * @return the uploaded part
+     * @throws Exception if the part cannot be uploaded
+     */
+    public Part uploadPart(String bucketName, String objectName, String uploadId, int partNumber, byte[] data,
+                           String contentMd5) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        headers.put("Content-MD5", contentMd5);
+        String etag = uploadPartAsync(bucketName, null, objectName, data, data.length, uploadId, partNumber, headers, HashMultimap.create())
+                .get()
+                .etag();
+        return new Part(partNumber, etag);
+    }
+
+    /**
+     * Complete a multipart upload. The object becomes visible atomically.
+     *
+     * @param bucketName the bucket name
+     * @param objectName the object name
+     * @param uploadId the upload ID
+     * @param parts the uploaded parts, ordered by part number
+     * @throws Exception if the upload cannot be completed
+     */
+    public void completeUpload(String bucketName, String objectName, String uploadId, Part[] parts) throws Exception {
+        completeMultipartUploadAsync(bucketName, null, objectName, uploadId, parts, HashMultimap.create(), HashMultimap.create()).get();
+    }
+
+    /**
+     * List one page of objects with a single request
+     *
+     * @param bucketName the bucket name
+     * @param prefix the object name prefix
+     * @param startAfter the object name to start after, or null for the first page
+     * @param maxKeys the maximum number of objects on the page, at most 1000
+     * @return the listing result, including whether more objects follow
+     * @throws Exception if the objects cannot be listed
+     */
+    public ListBucketResultV2 listPage(String bucketName, String prefix, String startAfter, int maxKeys) throws Exception {
+        return listObjectsV2Async(bucketName, null, null, null, startAfter, maxKeys, prefix, null, false, false,
+                HashMultimap.create(), HashMultimap.create()).get().result();
+    }
+
+    /**
+     * Abort a multipart upload and discard its parts
+     *
+     * @param bucketName the bucket name
+     * @param objectName the object name
+     * @param uploadId the upload ID
+     * @throws Exception if the upload cannot be aborted
+     */
+    public void abortUpload(String bucketName, String objectName, String uploadId) throws Exception {
+        abortMultipartUploadAsync(bucketName, null, objectName, uploadId, HashMultimap.create(), HashMultimap.create()).get();
+    }
+}
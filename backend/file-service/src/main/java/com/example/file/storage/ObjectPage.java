@@ -0,0 +1,12 @@
+package com.example.file.storage;
+
+import java.util.List;
+
+/**
+ * One page of an object listing
+ *
+ * @param objects the objects on this page
+ * @param nextToken the token to pass for the next page, or null if this is the last page
+ */
+public record ObjectPage(List<StoredObject> objects, String nextToken) {
+}
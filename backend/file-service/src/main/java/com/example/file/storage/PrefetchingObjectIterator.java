@@ -0,0 +1,79 @@
+package com.example.file.storage;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Iterator over a paged object listing that fetches the next page in the background
+ * while the current one is consumed. At most one page is buffered ahead, so memory
+ * stays bounded however many objects the listing returns.
+ */
+final class PrefetchingObjectIterator implements Iterator<StoredObject>, AutoCloseable {
+
+    private final Function<String, ObjectPage> pageFetcher;
+    private final Executor executor;
+
+    private Iterator<StoredObject> current = Collections.emptyIterator();
+    private CompletableFuture<ObjectPage> next;
+    private volatile boolean closed;
+
+    /**
+     * @param pageFetcher fetches the page for a continuation token (null for the first page)
+     * @param executor the executor fetching pages ahead
+     */
+    PrefetchingObjectIterator(Function<String, ObjectPage> pageFetcher, Executor executor) {
+        this.pageFetcher = pageFetcher;
+        this.executor = executor;
+        this.next = fetch(null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (next == null || closed) {
+                return false;
+            }
+            
+            ObjectPage page = await(next);
+            next = page.nextToken() != null ? fetch(page.nextToken()) : null;
+            current = page.objects().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public StoredObject next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (next != null) {
+            next.cancel(false);
+        }
+    }
+
+    private CompletableFuture<ObjectPage> fetch(String token) {
+        return CompletableFuture.supplyAsync(() -> pageFetcher.apply(token), executor);
+    }
+
+    private ObjectPage await(CompletableFuture<ObjectPage> page) {
+        try {
+            return page.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
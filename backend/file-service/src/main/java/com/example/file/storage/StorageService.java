@@ -0,0 +1,165 @@
+package com.example.file.storage;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage backend for file contents.
+ *
+ * The backend is selected with the storage.type property: minio (default) or local.
+ * Object names are opaque keys; callers never build paths themselves.
+ */
+public interface StorageService {
+
+    /**
+     * Store an object
+     *
+     * @param objectName the object name
+     * @param data the content
+     * @param size the content length in bytes
+     * @param contentType the content type
+     * @return the object name
+     */
+    String putObject(String objectName, InputStream data, long size, String contentType);
+
+    /**
+     * Store an uploaded file
+     *
+     * @param file the file to upload
+     * @param objectName the object name
+     * @return the object name
+     */
+    default String uploadFile(MultipartFile file, String objectName) {
+        try (InputStream in = file.getInputStream()) {
+            return putObject(objectName, in, file.getSize(), file.getContentType());
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading uploaded file", e);
+        }
+    }
+
+    /**
+     * Store a byte array
+     *
+     * @param data the content
+     * @param objectName the object name
+     * @param contentType the content type
+     * @return the object name
+     */
+    default String uploadBytes(byte[] data, String objectName, String contentType) {
+        return putObject(objectName, new ByteArrayInputStream(data), data.length, contentType);
+    }
+
+    /**
+     * Read an object
+     *
+     * @param objectName the object name
+     * @return the content stream, to be closed by the caller
+     */
+    InputStream downloadFile(String objectName);
+
+    /**
+     * Read part of an object
+     *
+     * @param objectName the object name
+     * @param offset the first byte to read
+     * @param length the number of bytes to read
+     * @return the content stream, to be closed by the caller
+     */
+    InputStream downloadRange(String objectName, long offset, long length);
+
+    /**
+     * Delete an object
+     *
+     * @param objectName the object name
+     */
+    void deleteFile(String objectName);
+
+    /**
+     * Delete several objects. Missing objects are not an error.
+     *
+     * @param objectNames the object names
+     * @return the object names that could not be deleted
+     */
+    List<String> deleteFiles(List<String> objectNames);
+
+    /**
+     * List objects below a prefix. The stream is lazy and must be closed by the caller.
+     *
+     * @param prefix the object name prefix
+     * @return the objects, in no particular order
+     */
+    Stream<StoredObject> listObjects(String prefix);
+
+    /**
+     * List one page of objects below a prefix. A page may hold fewer objects than
+     * requested even when more follow; the listing ends when no token is returned.
+     *
+     * @param prefix the object name prefix
+     * @param continuationToken the token of the previous page, or null for the first page
+     * @param maxKeys the maximum number of objects on the page
+     * @return the page
+     */
+    ObjectPage listObjectsPage(String prefix, String continuationToken, int maxKeys);
+
+    /**
+     * Get object metadata
+     *
+     * @param objectName the object name
+     * @return the object metadata, or null if the object does not exist
+     */
+    StoredObject statFile(String objectName);
+
+    /**
+     * Check if an object exists
+     *
+     * @param objectName the object name
+     * @return true if the object exists
+     */
+    default boolean fileExists(String objectName) {
+        return statFile(objectName) != null;
+    }
+
+    /**
+     * Copy an object without passing its content through the application
+     *
+     * @param sourceObjectName the source object name
+     * @param targetObjectName the target object name
+     */
+    void copyFile(String sourceObjectName, String targetObjectName);
+
+    /**
+     * Generate a presigned URL that lets a client upload an object directly
+     *
+     * @param objectName the object name
+     * @return the presigned PUT URL, or empty if the backend does not support presigned URLs
+     */
+    default Optional<String> getPresignedUploadUrl(String objectName) {
+        return Optional.empty();
+    }
+
+    /**
+     * Generate a presigned URL that lets a client download an object directly
+     *
+     * @param objectName the object name
+     * @param contentDisposition the Content-Disposition header to return
+     * @return the presigned GET URL, or empty if the backend does not support presigned URLs
+     */
+    default Optional<String> getPresignedDownloadUrl(String objectName, String contentDisposition) {
+        return Optional.empty();
+    }
+
+    /**
+     * Get the lifetime of presigned URLs
+     *
+     * @return the expiry in seconds
+     */
+    default int getPresignedUrlExpirySeconds() {
+        return 0;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.file.storage;
+
+import java.time.Instant;
+
+/**
+ * Metadata of a stored object
+ *
+ * @param objectName the object name
+ * @param size the size in bytes
+ * @param contentType the content type, if known
+ * @param lastModified the last modification time
+ * @param etag the entity tag, if the backend provides one
+ */
+public record StoredObject(String objectName, long size, String contentType, Instant lastModified, String etag) {
+}
@@ -0,0 +1,7 @@
+-- Members of the groups files can be shared with; members get read access to the group's files
+CREATE TABLE file_group_member (
+    group_id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (group_id, user_id)
+);
@@ -0,0 +1,2 @@
+-- Count the retries of failed jobs so they can be retried with a cap and backoff
+ALTER TABLE file_job ADD COLUMN attempts INT NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Object names are generated per upload; index them so presigned upload
+-- completion and storage reconciliation can look rows up by object name
+CREATE UNIQUE INDEX idx_file_path ON file_info(file_path);
@@ -0,0 +1,23 @@
+-- Record when an item was moved to the trash
+ALTER TABLE file_info ADD COLUMN deleted_at TIMESTAMP;
+
+-- Create file_job table for long-running background operations
+CREATE TABLE file_job (
+    id UUID PRIMARY KEY,
+    job_type VARCHAR(30) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    target_id UUID NOT NULL,
+    requested_by UUID,
+    total_items BIGINT,
+    processed_items BIGINT NOT NULL DEFAULT 0,
+    failed_items BIGINT NOT NULL DEFAULT 0,
+    job_cursor VARCHAR(255),
+    error_message VARCHAR(1000),
+    completed_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+-- Create indexes
+CREATE INDEX idx_file_job_status ON file_job(status, updated_at);
+CREATE INDEX idx_file_job_target ON file_job(target_id);
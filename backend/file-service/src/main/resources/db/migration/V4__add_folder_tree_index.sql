@@ -0,0 +1,3 @@
+-- Recursive folder queries walk live children of each level; a partial index
+-- keeps every step of the walk an index lookup
+CREATE INDEX idx_file_parent_active ON file_info(parent_folder_id) WHERE is_deleted = false;
@@ -0,0 +1,14 @@
+-- Enable trigram matching for fuzzy name search
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Full-text document over name, extension and media type
+ALTER TABLE file_info ADD COLUMN search_vector tsvector
+    GENERATED ALWAYS AS (
+        to_tsvector('simple',
+            coalesce(original_name, '') || ' ' || coalesce(extension, '') || ' ' || coalesce(media_type, ''))
+    ) STORED;
+
+-- Create search indexes
+CREATE INDEX idx_file_search_vector ON file_info USING GIN (search_vector) WHERE is_deleted = false;
+CREATE INDEX idx_file_name_trgm ON file_info USING GIN (lower(original_name) gin_trgm_ops) WHERE is_deleted = false;
+CREATE INDEX idx_file_owner_name_prefix ON file_info(owner_id, (lower(original_name) COLLATE "C"), id) WHERE is_deleted = false;
@@ -0,0 +1,5 @@
+-- Track thumbnail generation per file
+ALTER TABLE file_info ADD COLUMN thumbnail_status VARCHAR(20) NOT NULL DEFAULT 'NONE';
+
+-- Only pending rows are scanned by the resume job
+CREATE INDEX idx_file_thumbnail_pending ON file_info(updated_at) WHERE thumbnail_status = 'PENDING';
@@ -0,0 +1,36 @@
+-- Folder aggregates over the whole subtree
+ALTER TABLE file_info ADD COLUMN total_size BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE file_info ADD COLUMN file_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE file_info ADD COLUMN folder_count BIGINT NOT NULL DEFAULT 0;
+
+-- Pending changes to folder aggregates, folded in by the compaction job
+CREATE TABLE folder_stats_delta (
+    id BIGSERIAL PRIMARY KEY,
+    folder_id UUID NOT NULL,
+    size_delta BIGINT NOT NULL,
+    file_delta BIGINT NOT NULL,
+    folder_delta BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_folder_stats_delta_folder ON folder_stats_delta(folder_id);
+
+-- Backfill the aggregates of existing folders
+WITH RECURSIVE closure AS (
+    SELECT id AS item_id, parent_folder_id AS ancestor_id FROM file_info
+    WHERE parent_folder_id IS NOT NULL AND is_deleted = false
+    UNION ALL
+    SELECT c.item_id, f.parent_folder_id FROM closure c JOIN file_info f ON f.id = c.ancestor_id
+    WHERE f.parent_folder_id IS NOT NULL AND f.is_deleted = false
+)
+UPDATE file_info t
+SET total_size = s.total_size, file_count = s.file_count, folder_count = s.folder_count
+FROM (
+    SELECT c.ancestor_id,
+           COALESCE(SUM(i.file_size) FILTER (WHERE NOT i.is_folder), 0) AS total_size,
+           COUNT(*) FILTER (WHERE NOT i.is_folder) AS file_count,
+           COUNT(*) FILTER (WHERE i.is_folder) AS folder_count
+    FROM closure c JOIN file_info i ON i.id = c.item_id
+    GROUP BY c.ancestor_id
+) s
+WHERE t.id = s.ancestor_id;
@@ -0,0 +1,2 @@
+-- Record the folder a copy job writes into
+ALTER TABLE file_job ADD COLUMN destination_id UUID;
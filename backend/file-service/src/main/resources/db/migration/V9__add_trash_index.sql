@@ -0,0 +1,2 @@
+-- Find trash past its retention period, oldest first
+CREATE INDEX idx_file_trash ON file_info((COALESCE(deleted_at, updated_at)), id) WHERE is_deleted = true;
@@ -0,0 +1,17 @@
+-- Overwrite used counters with the totals of the stored files, but only where a counter
+-- still holds the value read before the totals were summed, so changes made meanwhile are kept.
+-- KEYS[1..n] scope hashes
+-- ARGV[2i-1] used value of scope i read before the sum, or '' if it had none
+-- ARGV[2i] stored bytes of scope i
+-- Returns the number of counters that were corrected
+local corrected = 0
+
+for i = 1, #KEYS do
+    local used = redis.call('HGET', KEYS[i], 'used') or ''
+    local target = ARGV[2 * i]
+    if used == ARGV[2 * i - 1] and used ~= target and not (used == '' and target == '0') then
+        redis.call('HSET', KEYS[i], 'used', target)
+        corrected = corrected + 1
+    end
+end
+return corrected
@@ -0,0 +1,23 @@
+-- Reserve space in one or more quota scopes, all or nothing.
+-- KEYS[1] reservation index, KEYS[2] reservation, KEYS[3..n] scope hashes
+-- ARGV[1] bytes, ARGV[2] expiry (epoch millis), ARGV[3] object the space is for, or '' if none,
+-- ARGV[4..n] default limit per scope, -1 for unlimited
+-- Returns 0 on success, otherwise the position of the first scope that is full (1-based)
+local bytes = tonumber(ARGV[1])
+
+for i = 3, #KEYS do
+    local scope = redis.call('HMGET', KEYS[i], 'used', 'reserved', 'limit')
+    local used = tonumber(scope[1]) or 0
+    local reserved = tonumber(scope[2]) or 0
+    local limit = tonumber(scope[3]) or tonumber(ARGV[i + 1])
+    if limit >= 0 and used + reserved + bytes > limit then
+        return i - 2
+    end
+end
+
+for i = 3, #KEYS do
+    redis.call('HINCRBY', KEYS[i], 'reserved', bytes)
+end
+redis.call('HSET', KEYS[2], 'bytes', bytes, 'scopes', table.concat(KEYS, ',', 3), 'object', ARGV[3])
+redis.call('ZADD', KEYS[1], ARGV[2], KEYS[2])
+return 0
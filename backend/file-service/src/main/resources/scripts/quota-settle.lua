@@ -0,0 +1,21 @@
+-- Commit or release a reservation. Settling a reservation twice is a no-op.
+-- KEYS[1] reservation index, KEYS[2] reservation
+-- ARGV[1] bytes actually stored, or -1 to release the reservation
+-- Returns 1 if the reservation was settled, 0 if it no longer exists
+local bytes = redis.call('HGET', KEYS[2], 'bytes')
+if not bytes then
+    return 0
+end
+
+local stored = tonumber(ARGV[1])
+local scopes = redis.call('HGET', KEYS[2], 'scopes')
+for scope in string.gmatch(scopes, '[^,]+') do
+    redis.call('HINCRBY', scope, 'reserved', -tonumber(bytes))
+    if stored >= 0 then
+        redis.call('HINCRBY', scope, 'used', stored)
+    end
+end
+
+redis.call('DEL', KEYS[2])
+redis.call('ZREM', KEYS[1], KEYS[2])
+return 1
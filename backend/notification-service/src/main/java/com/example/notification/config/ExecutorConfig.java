@@ -0,0 +1,63 @@
+package com.example.notification.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+@EnableScheduling
+public class ExecutorConfig {
+
+    @Value("${notification.email.dispatcher.workers:4}")
+    private int emailDispatchWorkers;
+
+    @Value("${notification.push.pool-size:32}")
+    private int pushPoolSize;
+
+    @Value("${notification.scheduling.pool-size:4}")
+    private int schedulingPoolSize;
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        // Scheduled jobs share this pool; a single thread would let one slow job delay the heartbeats
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(schedulingPoolSize);
+        scheduler.setThreadNamePrefix("notification-scheduling-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor emailDispatchExecutor() {
+        // The dispatcher never claims more than it can hand over, so the queue stays small
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(emailDispatchWorkers);
+        executor.setMaxPoolSize(emailDispatchWorkers);
+        executor.setQueueCapacity(Integer.MAX_VALUE);
+        executor.setThreadNamePrefix("email-dispatch-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor pushExecutor() {
+        // Writes buffered events to event streams; each stream has at most one write queued.
+        // Writes block on the client, so the pool is sized for several stalled streams until they
+        // are evicted, and idle threads are let go.
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pushPoolSize);
+        executor.setMaxPoolSize(pushPoolSize);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(Integer.MAX_VALUE);
+        executor.setThreadNamePrefix("notification-push-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -2,15 +2,23 @@ package com.example.notification.config;
 
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 public class RabbitMQConfig {
 
@@ -19,6 +27,15 @@ public class RabbitMQConfig {
     public static final String EXCHANGE = "notification.exchange";
     public static final String NOTIFICATION_ROUTING_KEY = "notification.key";
     public static final String EMAIL_ROUTING_KEY = "email.key";
+    public static final String RETRY_EXCHANGE_PREFIX = "notification.retry.";
+    public static final String DEAD_LETTER_EXCHANGE = "notification.dlx";
+    public static final String DEAD_LETTER_QUEUE = "notification.dlq";
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+    public static final String ORIGINAL_QUEUE_HEADER = "x-original-queue";
+    public static final String EXCEPTION_MESSAGE_HEADER = "x-exception-message";
+
+    @Value("${notification.rabbitmq.retry.delays-ms:1000,10000,60000,300000}")
+    private List<Long> retryDelaysMs;
 
     @Bean
     public Queue notificationQueue() {
@@ -45,6 +62,45 @@ public class RabbitMQConfig {
         return BindingBuilder.bind(emailQueue).to(exchange).with(EMAIL_ROUTING_KEY);
     }
 
+    @Bean
+    public Declarables retryTiers() {
+        // Each delay gets a queue whose messages expire into the default exchange, which routes
+        // them back to the queue named by their routing key, so all queues share the tiers
+
+        List<Declarable> declarables = new ArrayList<>();
+        for (long delayMs : retryDelaysMs) {
+            String name = retryExchange(delayMs);
+            FanoutExchange tierExchange = new FanoutExchange(name);
+            Queue tierQueue = QueueBuilder.durable(name)
+                    .ttl((int) delayMs)
+                    .deadLetterExchange("")
+                    .build();
+            declarables.add(tierExchange);
+            declarables.add(tierQueue);
+            declarables.add(BindingBuilder.bind(tierQueue).to(tierExchange));
+        }
+        return new Declarables(declarables);
+    }
+
+    @Bean
+    public FanoutExchange deadLetterExchange() {
+        return new FanoutExchange(DEAD_LETTER_EXCHANGE);
+    }
+
+    @Bean
+    public Queue deadLetterQueue() {
+        return new Queue(DEAD_LETTER_QUEUE, true);
+    }
+
+    @Bean
+    public Binding deadLetterBinding(Queue deadLetterQueue, FanoutExchange deadLetterExchange) {
+        return BindingBuilder.bind(deadLetterQueue).to(deadLetterExchange);
+    }
+
+    public static String retryExchange(long delayMs) {
+        return RETRY_EXCHANGE_PREFIX + delayMs + "ms";
+    }
+
     @Bean
     public MessageConverter messageConverter() {
         return new Jackson2JsonMessageConverter();
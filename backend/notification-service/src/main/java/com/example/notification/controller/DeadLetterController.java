@@ -0,0 +1,75 @@
+package com.example.notification.controller;
+
+import com.example.common.dto.ApiResponse;
+import com.example.common.exception.ForbiddenException;
+import com.example.notification.dto.RedriveResultDto;
+import com.example.notification.service.DeadLetterService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/dead-letters")
+@RequiredArgsConstructor
+@Validated
+@Tag(name = "Dead Letter Controller", description = "API for re-driving messages that exhausted their retries")
+@SecurityRequirement(name = "bearerAuth")
+public class DeadLetterController {
+
+    private static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+
+    private final DeadLetterService deadLetterService;
+
+    @GetMapping("/kafka")
+    @Operation(summary = "List the Kafka dead-letter topics")
+    public ResponseEntity<ApiResponse<List<String>>> getKafkaDeadLetterTopics(
+            @Parameter(hidden = true)
+            @RequestHeader(value = "X-Authorities", required = false) String authorities) {
+        requireAdmin(authorities);
+        List<String> topics = deadLetterService.getKafkaDeadLetterTopics();
+        return ResponseEntity.ok(new ApiResponse<>(true, "Dead-letter topics retrieved successfully", topics));
+    }
+
+    @PostMapping("/kafka/{topic}/redrive")
+    @Operation(summary = "Re-drive records from a Kafka dead-letter topic to their original topic")
+    public ResponseEntity<ApiResponse<RedriveResultDto>> redriveKafka(
+            @PathVariable String topic,
+            @RequestParam(defaultValue = "1000") @Min(1) @Max(100000) int limit,
+            @Parameter(hidden = true)
+            @RequestHeader(value = "X-Authorities", required = false) String authorities) {
+        requireAdmin(authorities);
+        RedriveResultDto result = deadLetterService.redriveKafka(topic, limit);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Dead letters re-driven successfully", result));
+    }
+
+    @PostMapping("/rabbitmq/redrive")
+    @Operation(summary = "Re-drive messages from the RabbitMQ dead-letter queue to their original queues")
+    public ResponseEntity<ApiResponse<RedriveResultDto>> redriveRabbit(
+            @RequestParam(defaultValue = "1000") @Min(1) @Max(100000) int limit,
+            @Parameter(hidden = true)
+            @RequestHeader(value = "X-Authorities", required = false) String authorities) {
+        requireAdmin(authorities);
+        RedriveResultDto result = deadLetterService.redriveRabbit(limit);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Dead letters re-driven successfully", result));
+    }
+
+    // The service has no security filter chain; the gateway validates the token and forwards its authorities
+    private void requireAdmin(String authorities) {
+        boolean admin = authorities != null && Arrays.stream(authorities.split(","))
+                .map(String::trim)
+                .anyMatch(ADMIN_AUTHORITY::equals);
+        if (!admin) {
+            throw new ForbiddenException("Only administrators can manage dead letters");
+        }
+    }
+}
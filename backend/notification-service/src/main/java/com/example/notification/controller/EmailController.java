@@ -9,6 +9,8 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -29,7 +31,9 @@ public class EmailController {
     @Operation(summary = "Send an email")
     public ResponseEntity<ApiResponse<Void>> sendEmail(
             @Valid @RequestBody SendEmailRequest request) {
-        emailService.sendEmail(request);
+        if (!emailService.sendEmail(request)) {
+            return ResponseEntity.ok(new ApiResponse<>(true, "Duplicate request ignored", null));
+        }
         return ResponseEntity.status(HttpStatus.ACCEPTED)
                 .body(new ApiResponse<>(true, "Email queued for sending", null));
     }
@@ -38,9 +42,10 @@ public class EmailController {
     @Operation(summary = "Queue an email without sending it immediately")
     public ResponseEntity<ApiResponse<EmailNotificationDto>> queueEmail(
             @Valid @RequestBody SendEmailRequest request) {
-        EmailNotificationDto emailNotification = emailService.createEmailNotification(request);
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(new ApiResponse<>(true, "Email queued successfully", emailNotification));
+        return emailService.createEmailNotification(request)
+                .map(emailNotification -> ResponseEntity.status(HttpStatus.CREATED)
+                        .body(new ApiResponse<>(true, "Email queued successfully", emailNotification)))
+                .orElseGet(() -> ResponseEntity.ok(new ApiResponse<>(true, "Duplicate request ignored", null)));
     }
 
     @GetMapping("/pending")
@@ -52,8 +57,8 @@ public class EmailController {
 
     @GetMapping("/failed")
     @Operation(summary = "Get all failed emails")
-    public ResponseEntity<ApiResponse<List<EmailNotificationDto>>> getFailedEmails() {
-        List<EmailNotificationDto> failedEmails = emailService.getFailedEmails();
+    public ResponseEntity<ApiResponse<Page<EmailNotificationDto>>> getFailedEmails(Pageable pageable) {
+        Page<EmailNotificationDto> failedEmails = emailService.getFailedEmails(pageable);
         return ResponseEntity.ok(new ApiResponse<>(true, "Failed emails retrieved successfully", failedEmails));
     }
 
@@ -1,8 +1,12 @@
 package com.example.notification.controller;
 
 import com.example.common.dto.ApiResponse;
+import com.example.common.exception.ForbiddenException;
+import com.example.notification.dto.BulkNotificationRequest;
 import com.example.notification.dto.CreateNotificationRequest;
 import com.example.notification.dto.NotificationDto;
+import com.example.notification.dto.NotificationFeedDto;
+import com.example.notification.push.NotificationPushService;
 import com.example.notification.service.NotificationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,24 +17,33 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/notifications")
 @RequiredArgsConstructor
+@Validated
 @Tag(name = "Notification Controller", description = "API for managing notifications")
 @SecurityRequirement(name = "bearerAuth")
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationPushService notificationPushService;
 
     @PostMapping
     @Operation(summary = "Create a new notification", description = "Creates a new notification with the provided details")
@@ -42,9 +55,10 @@ public class NotificationController {
     public ResponseEntity<ApiResponse<NotificationDto>> createNotification(
             @Parameter(description = "Notification creation request", required = true, schema = @Schema(implementation = CreateNotificationRequest.class))
             @Valid @RequestBody CreateNotificationRequest request) {
-        NotificationDto notification = notificationService.createNotification(request);
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(new ApiResponse<>(true, "Notification created successfully", notification));
+        return notificationService.createNotification(request)
+                .map(notification -> ResponseEntity.status(HttpStatus.CREATED)
+                        .body(new ApiResponse<>(true, "Notification created successfully", notification)))
+                .orElseGet(() -> ResponseEntity.ok(new ApiResponse<>(true, "Duplicate request ignored", null)));
     }
 
     @GetMapping("/user/{userId}")
@@ -63,8 +77,47 @@ public class NotificationController {
         return ResponseEntity.ok(new ApiResponse<>(true, "User notifications retrieved successfully", notifications));
     }
 
+    @GetMapping(value = "/user/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream new notifications", description = "Opens a server-sent event stream that receives the user's new notifications as they are created")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Stream of another user", content = @Content)
+    })
+    public SseEmitter streamNotifications(
+            @Parameter(description = "User ID", required = true)
+            @PathVariable UUID userId,
+            @Parameter(hidden = true)
+            @RequestHeader("X-User-Id") UUID currentUserId) {
+        // Only the user may listen to their own notifications; the gateway sets the header from the token
+        if (!userId.equals(currentUserId)) {
+            throw new ForbiddenException("You can only stream your own notifications");
+        }
+        return notificationPushService.subscribe(userId);
+    }
+
+    @GetMapping("/user/{userId}/feed")
+    @Operation(summary = "Get a page of the notification feed", description = "Retrieves a user's notifications newest first, continuing from the cursor of the previous page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notification feed retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+    })
+    public ResponseEntity<ApiResponse<NotificationFeedDto>> getNotificationFeed(
+            @Parameter(description = "User ID", required = true)
+            @PathVariable UUID userId,
+            @Parameter(description = "Cursor from the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size")
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit,
+            @Parameter(description = "Only return unread notifications")
+            @RequestParam(defaultValue = "false") boolean unreadOnly) {
+        NotificationFeedDto feed = notificationService.getNotificationFeed(userId, cursor, limit, unreadOnly);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Notification feed retrieved successfully", feed));
+    }
+
     @GetMapping("/user/{userId}/unread")
-    @Operation(summary = "Get unread notifications for a user", description = "Retrieves all unread notifications for a specific user")
+    @Operation(summary = "Get unread notifications for a user", description = "Retrieves the most recent unread notifications for a specific user")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Unread notifications retrieved successfully"),
             @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
@@ -72,8 +125,10 @@ public class NotificationController {
     })
     public ResponseEntity<ApiResponse<List<NotificationDto>>> getUnreadNotifications(
             @Parameter(description = "User ID", required = true)
-            @PathVariable UUID userId) {
-        List<NotificationDto> notifications = notificationService.getUnreadNotifications(userId);
+            @PathVariable UUID userId,
+            @Parameter(description = "Maximum number of notifications")
+            @RequestParam(defaultValue = "100") @Min(1) @Max(500) int limit) {
+        List<NotificationDto> notifications = notificationService.getUnreadNotifications(userId, limit);
         return ResponseEntity.ok(new ApiResponse<>(true, "Unread notifications retrieved successfully", notifications));
     }
 
@@ -91,6 +146,20 @@ public class NotificationController {
         return ResponseEntity.ok(new ApiResponse<>(true, "Unread notification count retrieved successfully", count));
     }
 
+    @GetMapping("/unread/counts")
+    @Operation(summary = "Count unread notifications for many users", description = "Counts the unread notifications of each of the given users")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Unread notification counts retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+    })
+    public ResponseEntity<ApiResponse<Map<UUID, Long>>> countUnreadNotifications(
+            @Parameter(description = "User IDs", required = true)
+            @RequestParam @Size(min = 1, max = 1000) List<UUID> userIds) {
+        Map<UUID, Long> counts = notificationService.countUnreadNotifications(userIds);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Unread notification counts retrieved successfully", counts));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get notification by ID", description = "Retrieves a notification by its ID")
     @ApiResponses(value = {
@@ -133,6 +202,36 @@ public class NotificationController {
         return ResponseEntity.ok(new ApiResponse<>(true, "All notifications marked as read", null));
     }
 
+    @PatchMapping("/user/{userId}/read")
+    @Operation(summary = "Mark notifications as read", description = "Marks the given notifications of a user as read")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notifications marked as read"),
+            @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+    })
+    public ResponseEntity<ApiResponse<Integer>> markAsRead(
+            @Parameter(description = "User ID", required = true)
+            @PathVariable UUID userId,
+            @Valid @RequestBody BulkNotificationRequest request) {
+        int updated = notificationService.markAsRead(userId, request.getIds());
+        return ResponseEntity.ok(new ApiResponse<>(true, "Notifications marked as read", updated));
+    }
+
+    @PostMapping("/user/{userId}/delete")
+    @Operation(summary = "Delete notifications", description = "Deletes the given notifications of a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notifications deleted successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+    })
+    public ResponseEntity<ApiResponse<Integer>> deleteNotifications(
+            @Parameter(description = "User ID", required = true)
+            @PathVariable UUID userId,
+            @Valid @RequestBody BulkNotificationRequest request) {
+        int deleted = notificationService.deleteNotifications(userId, request.getIds());
+        return ResponseEntity.ok(new ApiResponse<>(true, "Notifications deleted successfully", deleted));
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete notification", description = "Deletes a notification by its ID")
     @ApiResponses(value = {
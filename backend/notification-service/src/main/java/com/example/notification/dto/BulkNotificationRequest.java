@@ -0,0 +1,22 @@
+package com.example.notification.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkNotificationRequest {
+    
+    @NotEmpty(message = "Notification IDs are required")
+    @Size(max = 1000, message = "At most 1000 notifications can be changed at once")
+    private List<UUID> ids;
+}
@@ -3,6 +3,7 @@ package com.example.notification.dto;
 import com.example.notification.model.NotificationType;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -27,4 +28,8 @@ public class CreateNotificationRequest {
     
     @NotBlank(message = "Content is required")
     private String content;
+    
+    // Set by the producer so redeliveries of the same request are recognised
+    @Size(max = 100, message = "Idempotency key must be at most 100 characters")
+    private String idempotencyKey;
 }
\ No newline at end of file
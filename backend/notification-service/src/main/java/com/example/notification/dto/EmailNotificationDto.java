@@ -23,4 +23,6 @@ public class EmailNotificationDto {
     private String errorMessage;
     private LocalDateTime createdAt;
     private LocalDateTime sentAt;
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
 }
\ No newline at end of file
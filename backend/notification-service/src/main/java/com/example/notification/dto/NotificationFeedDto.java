@@ -0,0 +1,18 @@
+package com.example.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationFeedDto {
+    
+    private List<NotificationDto> items;
+    private String nextCursor;
+}
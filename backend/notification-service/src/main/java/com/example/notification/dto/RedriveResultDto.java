@@ -0,0 +1,18 @@
+package com.example.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RedriveResultDto {
+    
+    private String source;
+    private String target;
+    private int redriven;
+    private int skipped;
+}
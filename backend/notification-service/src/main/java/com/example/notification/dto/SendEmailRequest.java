@@ -2,6 +2,7 @@ package com.example.notification.dto;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -29,4 +30,8 @@ public class SendEmailRequest {
     
     @NotBlank(message = "Body is required")
     private String body;
+    
+    // Set by the producer so redeliveries of the same request are recognised
+    @Size(max = 100, message = "Idempotency key must be at most 100 characters")
+    private String idempotencyKey;
 }
\ No newline at end of file
@@ -1,14 +1,30 @@
 package com.example.notification.kafka;
 
+import com.example.notification.config.KafkaConfig;
 import com.example.notification.dto.CreateNotificationRequest;
 import com.example.notification.dto.SendEmailRequest;
 import com.example.notification.service.EmailService;
 import com.example.notification.service.NotificationService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -16,26 +32,102 @@ public class NotificationConsumer {
 
     private final NotificationService notificationService;
     private final EmailService emailService;
+    private final Validator validator;
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+    private final KafkaTemplate<String, Object> deadLetterKafkaTemplate;
 
-    @KafkaListener(topics = "notification-topic", groupId = "${spring.kafka.consumer.group-id}")
-    public void consumeNotification(CreateNotificationRequest request) {
-        log.info("Received notification request for user: {}", request.getUserId());
+    @KafkaListener(topics = KafkaConfig.NOTIFICATION_TOPIC, groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            concurrency = "${notification.kafka.topics.notification.concurrency:3}")
+    public void consumeNotifications(List<ConsumerRecord<String, Object>> records) {
+        log.info("Received {} notification requests", records.size());
+        
+        List<ConsumerRecord<String, Object>> accepted = new ArrayList<>(records.size());
+        List<CreateNotificationRequest> requests = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, Object> record : records) {
+            if (!(record.value() instanceof CreateNotificationRequest request)) {
+                deadLetter(record, new IllegalArgumentException("Not a notification request"));
+                continue;
+            }
+            Set<ConstraintViolation<CreateNotificationRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                deadLetter(record, new ConstraintViolationException(violations));
+                continue;
+            }
+            accepted.add(record);
+            requests.add(request);
+        }
+        if (requests.isEmpty()) {
+            return;
+        }
+        
         try {
-            notificationService.createNotification(request);
-            log.info("Successfully processed notification for user: {}", request.getUserId());
-        } catch (Exception e) {
-            log.error("Error processing notification for user: {}", request.getUserId(), e);
+            int created = notificationService.createNotifications(requests);
+            log.info("Successfully processed {} notifications", created);
+        } catch (DataIntegrityViolationException e) {
+            // Isolate the records the database rejects
+            log.warn("Notification batch rejected, retrying records one by one: {}", e.getMessage());
+            List<ConsumerRecord<String, Object>> failed = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                try {
+                    notificationService.createNotification(requests.get(i));
+                } catch (DataIntegrityViolationException recordException) {
+                    deadLetter(accepted.get(i), recordException);
+                } catch (RuntimeException recordException) {
+                    // Records already inserted must not be redelivered, so retry only this one
+                    log.warn("Notification record failed, sending it to the retry topic: {}", recordException.getMessage());
+                    failed.add(accepted.get(i));
+                }
+            }
+            retryLater(failed);
+        } catch (RuntimeException e) {
+            // Hand the batch to the retry topics so the partition keeps moving while they back off
+            log.warn("Notification batch failed, sending {} records to the retry topic: {}", accepted.size(), e.getMessage());
+            retryLater(accepted);
         }
     }
 
-    @KafkaListener(topics = "email-topic", groupId = "${spring.kafka.consumer.group-id}")
+    @RetryableTopic(attempts = "${notification.kafka.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${notification.kafka.retry.initial-delay-ms:1000}",
+                    multiplierExpression = "${notification.kafka.retry.multiplier:5}",
+                    maxDelayExpression = "${notification.kafka.retry.max-delay-ms:60000}"),
+            exclude = DataIntegrityViolationException.class,
+            kafkaTemplate = "deadLetterKafkaTemplate",
+            retryTopicSuffix = KafkaConfig.BACKOFF_TOPIC_SUFFIX,
+            dltTopicSuffix = KafkaConfig.DEAD_LETTER_SUFFIX,
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE)
+    @KafkaListener(topics = KafkaConfig.NOTIFICATION_RETRY_TOPIC, groupId = "${spring.kafka.consumer.group-id}")
+    public void consumeNotificationRetry(CreateNotificationRequest request) {
+        log.info("Retrying notification request for user: {}", request.getUserId());
+        notificationService.createNotification(request);
+    }
+
+    @RetryableTopic(attempts = "${notification.kafka.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${notification.kafka.retry.initial-delay-ms:1000}",
+                    multiplierExpression = "${notification.kafka.retry.multiplier:5}",
+                    maxDelayExpression = "${notification.kafka.retry.max-delay-ms:60000}"),
+            kafkaTemplate = "deadLetterKafkaTemplate",
+            retryTopicSuffix = KafkaConfig.BACKOFF_TOPIC_SUFFIX,
+            dltTopicSuffix = KafkaConfig.DEAD_LETTER_SUFFIX,
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE)
+    @KafkaListener(topics = KafkaConfig.EMAIL_TOPIC, groupId = "${spring.kafka.consumer.group-id}",
+            concurrency = "${notification.kafka.topics.email.concurrency:1}")
     public void consumeEmail(SendEmailRequest request) {
         log.info("Received email request for recipient: {}", request.getRecipient());
-        try {
-            emailService.sendEmail(request);
-            log.info("Successfully processed email for recipient: {}", request.getRecipient());
-        } catch (Exception e) {
-            log.error("Error processing email for recipient: {}", request.getRecipient(), e);
-        }
+        emailService.sendEmail(request);
+        log.info("Successfully processed email for recipient: {}", request.getRecipient());
+    }
+
+    private void retryLater(List<ConsumerRecord<String, Object>> records) {
+        CompletableFuture.allOf(records.stream()
+                .map(record -> deadLetterKafkaTemplate.send(KafkaConfig.NOTIFICATION_RETRY_TOPIC, record.key(), record.value()))
+                .toArray(CompletableFuture[]::new))
+                .join();
+    }
+
+    private void deadLetter(ConsumerRecord<String, Object> record, Exception exception) {
+        log.error("Sending notification record {}-{}@{} to the dead-letter topic: {}",
+                record.topic(), record.partition(), record.offset(), exception.getMessage());
+        deadLetterPublishingRecoverer.accept(record, exception);
     }
-}
\ No newline at end of file
+}
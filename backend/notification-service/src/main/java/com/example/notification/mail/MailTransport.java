@@ -0,0 +1,149 @@
+package com.example.notification.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Sends emails over pooled SMTP connections, within a global and a per-recipient-domain
+// rate limit. The limits are per replica.
+@Component
+@Slf4j
+public class MailTransport {
+
+    private static final int SERVICE_NOT_AVAILABLE = 421;
+
+    private final JavaMailSenderImpl mailSender;
+    private final SmtpConnectionPool connectionPool;
+    private final TokenBucket globalLimit;
+    private final Map<String, TokenBucket> domainLimits = new ConcurrentHashMap<>();
+    private final double domainRatePerSecond;
+    private final double domainBurst;
+
+    private final Counter sentCounter;
+    private final Counter rejectedCounter;
+    private final Counter transportFailureCounter;
+    private final Timer sendTimer;
+    private final Timer rateLimitTimer;
+
+    public MailTransport(JavaMailSenderImpl mailSender, SmtpConnectionPool connectionPool, MeterRegistry meterRegistry,
+                         @Value("${notification.email.rate-limit.global-per-second:50}") double globalRatePerSecond,
+                         @Value("${notification.email.rate-limit.global-burst:50}") double globalBurst,
+                         @Value("${notification.email.rate-limit.domain-per-second:10}") double domainRatePerSecond,
+                         @Value("${notification.email.rate-limit.domain-burst:10}") double domainBurst) {
+        this.mailSender = mailSender;
+        this.connectionPool = connectionPool;
+        this.globalLimit = new TokenBucket(globalRatePerSecond, globalBurst);
+        this.domainRatePerSecond = domainRatePerSecond;
+        this.domainBurst = domainBurst;
+        
+        this.sentCounter = Counter.builder("notification.email.sent").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("notification.email.failed").tag("reason", "rejected").register(meterRegistry);
+        this.transportFailureCounter = Counter.builder("notification.email.failed").tag("reason", "transport").register(meterRegistry);
+        this.sendTimer = Timer.builder("notification.email.send").register(meterRegistry);
+        this.rateLimitTimer = Timer.builder("notification.email.rate-limit.wait").register(meterRegistry);
+        Gauge.builder("notification.email.smtp.connections", connectionPool, SmtpConnectionPool::getOpenConnections)
+                .tag("state", "open")
+                .register(meterRegistry);
+        Gauge.builder("notification.email.smtp.connections", connectionPool, SmtpConnectionPool::getIdleConnections)
+                .tag("state", "idle")
+                .register(meterRegistry);
+    }
+
+    public void send(String recipient, String subject, String body) {
+        try {
+            awaitRateLimits(recipient);
+            
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+            helper.setTo(recipient);
+            helper.setSubject(subject);
+            helper.setText(body);
+            
+            sendTimer.recordCallable(() -> {
+                send(message);
+                return null;
+            });
+            sentCounter.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while waiting to send", e);
+        } catch (MailSendException e) {
+            throw e;
+        } catch (Exception e) {
+            transportFailureCounter.increment();
+            throw new MailSendException("Failed to send email: " + e.getMessage(), e);
+        }
+    }
+
+    private void send(MimeMessage message) throws MessagingException, InterruptedException {
+        SmtpConnectionPool.SmtpConnection connection = connectionPool.borrow();
+        try {
+            connection.send(message);
+        } catch (SendFailedException e) {
+            int returnCode = returnCode(e);
+            // 421 means the server is closing the connection; other replies leave it usable
+            if (returnCode == SERVICE_NOT_AVAILABLE) {
+                connectionPool.invalidate(connection);
+            } else {
+                connectionPool.release(connection);
+            }
+            
+            // Only a permanent (5xx) refusal is final; 4xx replies such as throttling are worth retrying
+            if (returnCode >= 400 && returnCode < 500) {
+                transportFailureCounter.increment();
+                throw new MailSendException("Send deferred by server (" + returnCode + "): " + e.getMessage(), e);
+            }
+            rejectedCounter.increment();
+            throw new RecipientRejectedException("Recipient rejected: " + e.getMessage(), e);
+        } catch (MessagingException | RuntimeException e) {
+            connectionPool.invalidate(connection);
+            throw e;
+        }
+        connectionPool.release(connection);
+    }
+
+    // The SMTP reply code behind a send failure, or -1 if the server did not give one
+    private static int returnCode(MessagingException e) {
+        Exception current = e;
+        while (current != null) {
+            if (current instanceof SMTPSendFailedException sendFailed) {
+                return sendFailed.getReturnCode();
+            }
+            if (current instanceof SMTPAddressFailedException addressFailed) {
+                return addressFailed.getReturnCode();
+            }
+            current = current instanceof MessagingException messaging ? messaging.getNextException() : null;
+        }
+        return -1;
+    }
+
+    private void awaitRateLimits(String recipient) throws InterruptedException {
+        long started = System.nanoTime();
+        globalLimit.acquire();
+        domainLimits.computeIfAbsent(domainOf(recipient), domain -> new TokenBucket(domainRatePerSecond, domainBurst))
+                .acquire();
+        rateLimitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    private static String domainOf(String recipient) {
+        int at = recipient.lastIndexOf('@');
+        return at >= 0 ? recipient.substring(at + 1).trim().toLowerCase(Locale.ROOT) : "";
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.notification.mail;
+
+import org.springframework.mail.MailSendException;
+
+// The server refused the recipient, so sending the same email again will not help
+public class RecipientRejectedException extends MailSendException {
+
+    public RecipientRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
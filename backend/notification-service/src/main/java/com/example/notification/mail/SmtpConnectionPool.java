@@ -0,0 +1,132 @@
+package com.example.notification.mail;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pool of authenticated SMTP connections, so a connection and its TLS handshake serve
+// many messages instead of one
+@Component
+@Slf4j
+public class SmtpConnectionPool {
+
+    private final JavaMailSenderImpl mailSender;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<SmtpConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+
+    @Value("${notification.email.smtp.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+
+    @Value("${notification.email.smtp.max-idle-ms:30000}")
+    private long maxIdleMillis;
+
+    @Value("${notification.email.smtp.validate-after-idle-ms:5000}")
+    private long validateAfterIdleMillis;
+
+    public SmtpConnectionPool(JavaMailSenderImpl mailSender,
+                              @Value("${notification.email.smtp.max-connections:4}") int maxConnections) {
+        this.mailSender = mailSender;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    public SmtpConnection borrow() throws MessagingException, InterruptedException {
+        permits.acquire();
+        try {
+            SmtpConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isReusable(connection)) {
+                    return connection;
+                }
+                close(connection);
+            }
+            return connect();
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public void release(SmtpConnection connection) {
+        connection.lastUsed = System.currentTimeMillis();
+        if (connection.messages >= maxMessagesPerConnection) {
+            close(connection);
+        } else {
+            idle.offerFirst(connection);
+        }
+        permits.release();
+    }
+
+    public void invalidate(SmtpConnection connection) {
+        close(connection);
+        permits.release();
+    }
+
+    public int getOpenConnections() {
+        return open.get();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    @PreDestroy
+    public void closeIdle() {
+        SmtpConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            close(connection);
+        }
+    }
+
+    private boolean isReusable(SmtpConnection connection) {
+        long idleMillis = System.currentTimeMillis() - connection.lastUsed;
+        if (idleMillis > maxIdleMillis) {
+            return false;
+        }
+        // The server may have dropped a connection that sat idle; isConnected() checks with a NOOP
+        return idleMillis < validateAfterIdleMillis || connection.transport.isConnected();
+    }
+
+    private SmtpConnection connect() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        open.incrementAndGet();
+        return new SmtpConnection(transport);
+    }
+
+    private void close(SmtpConnection connection) {
+        open.decrementAndGet();
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP connection: {}", e.getMessage());
+        }
+    }
+
+    public static class SmtpConnection {
+
+        private final Transport transport;
+        private int messages;
+        private long lastUsed;
+
+        private SmtpConnection(Transport transport) {
+            this.transport = transport;
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+        public void send(MimeMessage message) throws MessagingException {
+            message.saveChanges();
+            messages++;
+            transport.sendMessage(message, message.getAllRecipients());
+        }
+    }
+}
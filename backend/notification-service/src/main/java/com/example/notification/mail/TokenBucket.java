@@ -0,0 +1,36 @@
+package com.example.notification.mail;
+
+import java.util.concurrent.TimeUnit;
+
+// Token bucket rate limiter. Callers that find it empty reserve a future token and
+// sleep until it is due, so waiting callers are served in arrival order.
+public class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double tokensPerSecond, double capacity) {
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.refilledAt = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+        
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) (-tokens / tokensPerNano);
+    }
+}
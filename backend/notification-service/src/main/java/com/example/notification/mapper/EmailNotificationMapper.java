@@ -16,5 +16,9 @@ public interface EmailNotificationMapper {
     @Mapping(target = "errorMessage", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "sentAt", ignore = true)
+    @Mapping(target = "attempts", ignore = true)
+    @Mapping(target = "lockedBy", ignore = true)
+    @Mapping(target = "lockedUntil", ignore = true)
+    @Mapping(target = "nextAttemptAt", ignore = true)
     EmailNotification toEntity(SendEmailRequest request);
 }
\ No newline at end of file
@@ -47,6 +47,18 @@ public class EmailNotification {
     @Column
     private LocalDateTime sentAt;
 
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column
+    private String lockedBy;
+
+    @Column
+    private LocalDateTime lockedUntil;
+
+    @Column
+    private LocalDateTime nextAttemptAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -2,6 +2,7 @@ package com.example.notification.model;
 
 public enum EmailStatus {
     PENDING,
+    SENDING,
     SENT,
     FAILED
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package com.example.notification.push;
+
+import com.example.notification.dto.NotificationDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+// Pushes new notifications to the open event streams of their users. Every replica publishes
+// new notifications on a Redis channel and delivers the ones whose user has a stream open on it.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationPushService implements MessageListener {
+
+    public static final String CHANNEL = "notification:push";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor pushExecutor;
+
+    private final Map<UUID, Deque<PushConnection>> connections = new ConcurrentHashMap<>();
+
+    @Value("${notification.push.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${notification.push.buffer-size:100}")
+    private int bufferSize;
+
+    @Value("${notification.push.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${notification.push.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    public SseEmitter subscribe(UUID userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        PushConnection connection = new PushConnection(userId, emitter, bufferSize);
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        emitter.onError(e -> remove(connection));
+        
+        Deque<PushConnection> userConnections = connections.compute(userId, (id, existing) -> {
+            Deque<PushConnection> deque = existing != null ? existing : new ConcurrentLinkedDeque<>();
+            deque.addLast(connection);
+            return deque;
+        });
+        // The oldest stream of a user with too many open is most likely an abandoned tab
+        while (userConnections.size() > maxConnectionsPerUser) {
+            PushConnection oldest = userConnections.pollFirst();
+            if (oldest != null) {
+                oldest.close();
+            }
+        }
+        
+        connection.offer(SseEmitter.event().comment("connected"), pushExecutor);
+        return emitter;
+    }
+
+    public void publishAfterCommit(List<NotificationDto> notifications) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(notifications);
+            return;
+        }
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(notifications);
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        NotificationDto notification;
+        try {
+            notification = objectMapper.readValue(message.getBody(), NotificationDto.class);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable push message: {}", e.getMessage());
+            return;
+        }
+        
+        Deque<PushConnection> userConnections = connections.get(notification.getUserId());
+        if (userConnections == null) {
+            return;
+        }
+        for (PushConnection connection : userConnections) {
+            SseEmitter.SseEventBuilder event = SseEmitter.event()
+                    .id(notification.getId().toString())
+                    .name("notification")
+                    .data(notification);
+            offer(connection, event);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.push.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        // Keeps idle streams open through proxies, finds clients that went away and evicts
+        // clients whose writes have been blocked for longer than the send timeout
+        long now = System.currentTimeMillis();
+        connections.values().forEach(userConnections -> userConnections.forEach(connection -> {
+            if (connection.isStalled(now, sendTimeoutMs)) {
+                log.info("Closing stalled event stream of user {}", connection.getUserId());
+                connection.close();
+                remove(connection);
+            } else {
+                offer(connection, SseEmitter.event().comment("heartbeat"));
+            }
+        }));
+    }
+
+    private void publish(List<NotificationDto> notifications) {
+        for (NotificationDto notification : notifications) {
+            try {
+                redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(notification));
+            } catch (JsonProcessingException | RuntimeException e) {
+                // Clients still see the notification on their next fetch
+                log.warn("Failed to publish notification {}: {}", notification.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void offer(PushConnection connection, SseEmitter.SseEventBuilder event) {
+        if (!connection.offer(event, pushExecutor)) {
+            log.info("Closing slow event stream of user {}", connection.getUserId());
+            connection.close();
+            remove(connection);
+        }
+    }
+
+    private void remove(PushConnection connection) {
+        connections.computeIfPresent(connection.getUserId(), (userId, userConnections) -> {
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+}
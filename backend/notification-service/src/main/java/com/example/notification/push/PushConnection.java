@@ -0,0 +1,91 @@
+package com.example.notification.push;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// One open event stream. Events are buffered in a bounded queue and written by at most one
+// executor task at a time, so a slow client never blocks the relay or other clients. A write
+// that stays blocked on a client longer than the send timeout marks the stream as stalled, so
+// it can be evicted before stalled clients take over the whole push pool.
+class PushConnection {
+
+    private final UUID userId;
+    private final SseEmitter emitter;
+    private final BlockingQueue<SseEmitter.SseEventBuilder> buffer;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile long sendStartedAt;
+
+    PushConnection(UUID userId, SseEmitter emitter, int bufferSize) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    UUID getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return false if the buffer is full, meaning the client is not keeping up
+     */
+    boolean offer(SseEmitter.SseEventBuilder event, Executor executor) {
+        if (closed.get()) {
+            return true;
+        }
+        if (!buffer.offer(event)) {
+            return false;
+        }
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+        return true;
+    }
+
+    boolean isStalled(long now, long sendTimeoutMs) {
+        long started = sendStartedAt;
+        return started != 0 && now - started > sendTimeoutMs;
+    }
+
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            buffer.clear();
+            // A blocked write holds the emitter's lock; the draining task completes it once the write returns
+            if (sendStartedAt == 0) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private void drain() {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while (!closed.get() && (event = buffer.poll()) != null) {
+                boolean sent;
+                sendStartedAt = System.currentTimeMillis();
+                try {
+                    emitter.send(event);
+                    sent = true;
+                } catch (IOException | IllegalStateException e) {
+                    sent = false;
+                }
+                sendStartedAt = 0;
+                
+                if (!sent) {
+                    close();
+                } else if (closed.get()) {
+                    // Closed as stalled while this write was blocked
+                    emitter.complete();
+                }
+            }
+            draining.set(false);
+            // An event offered after the loop ended but before the flag was cleared would be stranded
+        } while (!buffer.isEmpty() && !closed.get() && draining.compareAndSet(false, true));
+    }
+}
@@ -7,6 +7,7 @@ import com.example.notification.service.EmailService;
 import com.example.notification.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
@@ -18,27 +19,29 @@ public class RabbitMQConsumer {
 
     private final NotificationService notificationService;
     private final EmailService emailService;
+    private final RabbitRetryHandler rabbitRetryHandler;
 
     @RabbitListener(queues = RabbitMQConfig.NOTIFICATION_QUEUE)
-    public void consumeNotification(CreateNotificationRequest request) {
+    public void consumeNotification(CreateNotificationRequest request, Message message) {
         log.info("Received notification request from RabbitMQ for user: {}", request.getUserId());
         try {
             notificationService.createNotification(request);
             log.info("Successfully processed notification from RabbitMQ for user: {}", request.getUserId());
         } catch (Exception e) {
             log.error("Error processing notification from RabbitMQ for user: {}", request.getUserId(), e);
+            rabbitRetryHandler.retryOrDeadLetter(message, e);
         }
     }
 
     @RabbitListener(queues = RabbitMQConfig.EMAIL_QUEUE)
-    public void consumeEmail(SendEmailRequest request) {
+    public void consumeEmail(SendEmailRequest request, Message message) {
         log.info("Received email request from RabbitMQ for recipient: {}", request.getRecipient());
         try {
             emailService.sendEmail(request);
             log.info("Successfully processed email from RabbitMQ for recipient: {}", request.getRecipient());
         } catch (Exception e) {
             log.error("Error processing email from RabbitMQ for recipient: {}", request.getRecipient(), e);
-            // Retry logic or error handling could be added here
+            rabbitRetryHandler.retryOrDeadLetter(message, e);
         }
     }
 }
\ No newline at end of file
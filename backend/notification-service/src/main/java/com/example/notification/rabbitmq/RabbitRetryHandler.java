@@ -0,0 +1,51 @@
+package com.example.notification.rabbitmq;
+
+import com.example.notification.config.RabbitMQConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RabbitRetryHandler {
+
+    private final RabbitTemplate rabbitTemplate;
+
+    @Value("${notification.rabbitmq.retry.delays-ms:1000,10000,60000,300000}")
+    private List<Long> retryDelaysMs;
+
+    /**
+     * Park a failed message in the next delay tier, or in the dead-letter queue once
+     * every tier has been tried. The original delivery is acknowledged either way, so the
+     * queue keeps flowing while the message waits.
+     */
+    public void retryOrDeadLetter(Message message, Exception exception) {
+        MessageProperties properties = message.getMessageProperties();
+        Integer retryCount = properties.getHeader(RabbitMQConfig.RETRY_COUNT_HEADER);
+        int attempt = retryCount != null ? retryCount : 0;
+        String queue = properties.getHeader(RabbitMQConfig.ORIGINAL_QUEUE_HEADER);
+        if (queue == null) {
+            queue = properties.getConsumerQueue();
+            properties.setHeader(RabbitMQConfig.ORIGINAL_QUEUE_HEADER, queue);
+        }
+        
+        if (attempt < retryDelaysMs.size()) {
+            long delayMs = retryDelaysMs.get(attempt);
+            log.warn("Retrying message from {} in {} ms (attempt {}): {}", queue, delayMs, attempt + 1, exception.getMessage());
+            properties.setHeader(RabbitMQConfig.RETRY_COUNT_HEADER, attempt + 1);
+            rabbitTemplate.send(RabbitMQConfig.retryExchange(delayMs), queue, message);
+        } else {
+            log.error("Message from {} failed after {} retries, moving it to {}: {}",
+                    queue, attempt, RabbitMQConfig.DEAD_LETTER_QUEUE, exception.getMessage());
+            properties.setHeader(RabbitMQConfig.EXCEPTION_MESSAGE_HEADER, exception.getMessage());
+            rabbitTemplate.send(RabbitMQConfig.DEAD_LETTER_EXCHANGE, queue, message);
+        }
+    }
+}
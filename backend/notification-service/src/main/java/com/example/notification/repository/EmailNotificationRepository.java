@@ -2,9 +2,16 @@ package com.example.notification.repository;
 
 import com.example.notification.model.EmailNotification;
 import com.example.notification.model.EmailStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,5 +20,56 @@ public interface EmailNotificationRepository extends JpaRepository<EmailNotifica
     
     List<EmailNotification> findByStatus(EmailStatus status);
     
+    Page<EmailNotification> findByStatus(EmailStatus status, Pageable pageable);
+    
     List<EmailNotification> findByRecipientAndStatus(String recipient, EmailStatus status);
-}
\ No newline at end of file
+    
+    // Claims pending emails and emails whose sender's lease expired; rows claimed by another worker are skipped
+    @Transactional
+    @Query(value = "UPDATE email_notifications e SET status = 'SENDING', locked_by = :workerId, " +
+            "locked_until = :leaseUntil, attempts = e.attempts + 1 " +
+            "WHERE e.id IN (SELECT c.id FROM email_notifications c " +
+            "WHERE c.status = 'PENDING' OR (c.status = 'SENDING' AND c.locked_until < :now AND c.attempts < :maxAttempts) " +
+            "ORDER BY c.created_at LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING e.*", nativeQuery = true)
+    List<EmailNotification> claimBatch(@Param("workerId") String workerId,
+                                       @Param("now") LocalDateTime now,
+                                       @Param("leaseUntil") LocalDateTime leaseUntil,
+                                       @Param("maxAttempts") int maxAttempts,
+                                       @Param("limit") int limit);
+    
+    // Only the worker still holding the lease records the result
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE email_notifications SET status = 'SENT', sent_at = :sentAt, error_message = NULL, " +
+            "locked_by = NULL, locked_until = NULL " +
+            "WHERE id = :id AND status = 'SENDING' AND locked_by = :workerId", nativeQuery = true)
+    int markSent(@Param("id") UUID id, @Param("workerId") String workerId, @Param("sentAt") LocalDateTime sentAt);
+    
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE email_notifications SET status = 'FAILED', error_message = :errorMessage, " +
+            "next_attempt_at = :nextAttemptAt, locked_by = NULL, locked_until = NULL " +
+            "WHERE id = :id AND status = 'SENDING' AND locked_by = :workerId", nativeQuery = true)
+    int markFailed(@Param("id") UUID id, @Param("workerId") String workerId, @Param("errorMessage") String errorMessage,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+    
+    // Moves the next due failed emails, in retry index order, back to the outbox; rows being
+    // requeued by another replica are skipped
+    @Transactional
+    @Query(value = "WITH due AS (SELECT id FROM email_notifications " +
+            "WHERE status = 'FAILED' AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at, id LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "UPDATE email_notifications e SET status = 'PENDING', next_attempt_at = NULL " +
+            "FROM due WHERE e.id = due.id " +
+            "RETURNING e.id", nativeQuery = true)
+    List<UUID> requeueDueRetries(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    // Emails whose worker kept dying mid-send are given up on instead of being claimed forever
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE email_notifications SET status = 'FAILED', error_message = 'Sending did not complete', " +
+            "locked_by = NULL, locked_until = NULL " +
+            "WHERE status = 'SENDING' AND locked_until < :now AND attempts >= :maxAttempts", nativeQuery = true)
+    int failAbandoned(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts);
+}
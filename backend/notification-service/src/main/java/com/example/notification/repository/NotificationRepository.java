@@ -4,8 +4,13 @@ import com.example.notification.model.Notification;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,7 +19,39 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
     
     Page<Notification> findByUserId(UUID userId, Pageable pageable);
     
-    List<Notification> findByUserIdAndReadOrderByCreatedAtDesc(UUID userId, boolean read);
+    List<Notification> findByUserIdAndReadOrderByCreatedAtDesc(UUID userId, boolean read, Pageable pageable);
+    
+    @Query(value = "SELECT * FROM notifications WHERE user_id = :userId AND (:unreadOnly = false OR read = false) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Notification> findFeedFirstPage(@Param("userId") UUID userId,
+                                         @Param("unreadOnly") boolean unreadOnly,
+                                         @Param("limit") int limit);
+    
+    @Query(value = "SELECT * FROM notifications WHERE user_id = :userId AND (:unreadOnly = false OR read = false) " +
+            "AND (created_at, id) < (:createdAt, :id) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Notification> findFeedPageAfter(@Param("userId") UUID userId,
+                                         @Param("unreadOnly") boolean unreadOnly,
+                                         @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") UUID id,
+                                         @Param("limit") int limit);
     
     long countByUserIdAndRead(UUID userId, boolean read);
+    
+    @Query("SELECT n.userId AS userId, COUNT(n) AS unread FROM Notification n " +
+            "WHERE n.userId IN :userIds AND n.read = false GROUP BY n.userId")
+    List<UnreadCountView> countUnreadByUserIds(@Param("userIds") Collection<UUID> userIds);
+    
+    @Modifying
+    @Query("UPDATE Notification n SET n.read = true, n.readAt = :readAt WHERE n.userId = :userId AND n.read = false")
+    int markAllAsRead(@Param("userId") UUID userId, @Param("readAt") LocalDateTime readAt);
+    
+    @Modifying
+    @Query("UPDATE Notification n SET n.read = true, n.readAt = :readAt " +
+            "WHERE n.userId = :userId AND n.id IN :ids AND n.read = false")
+    int markAsRead(@Param("userId") UUID userId, @Param("ids") Collection<UUID> ids, @Param("readAt") LocalDateTime readAt);
+    
+    // Returns the read flag of each deleted row so unread counters can be adjusted
+    @Query(value = "DELETE FROM notifications WHERE user_id = :userId AND id IN (:ids) RETURNING read", nativeQuery = true)
+    List<Boolean> deleteByUserIdAndIds(@Param("userId") UUID userId, @Param("ids") Collection<UUID> ids);
 }
\ No newline at end of file
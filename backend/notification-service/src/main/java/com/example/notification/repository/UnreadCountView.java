@@ -0,0 +1,10 @@
+package com.example.notification.repository;
+
+import java.util.UUID;
+
+public interface UnreadCountView {
+    
+    UUID getUserId();
+    
+    long getUnread();
+}
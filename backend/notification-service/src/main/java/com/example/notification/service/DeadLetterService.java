@@ -0,0 +1,135 @@
+package com.example.notification.service;
+
+import com.example.common.exception.BusinessException;
+import com.example.notification.config.KafkaConfig;
+import com.example.notification.config.RabbitMQConfig;
+import com.example.notification.dto.RedriveResultDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DeadLetterService {
+
+    private static final String REDRIVE_GROUP_ID = "notification-dead-letter-redrive";
+
+    // Dead-letter topics and the topic their records are re-driven to
+    private static final Map<String, String> KAFKA_REDRIVE_TARGETS = Map.of(
+            KafkaConfig.NOTIFICATION_TOPIC + KafkaConfig.DEAD_LETTER_SUFFIX, KafkaConfig.NOTIFICATION_TOPIC,
+            KafkaConfig.NOTIFICATION_RETRY_TOPIC + KafkaConfig.DEAD_LETTER_SUFFIX, KafkaConfig.NOTIFICATION_TOPIC,
+            KafkaConfig.EMAIL_TOPIC + KafkaConfig.DEAD_LETTER_SUFFIX, KafkaConfig.EMAIL_TOPIC);
+
+    private final ConsumerFactory<String, Object> consumerFactory;
+    private final KafkaTemplate<String, Object> deadLetterKafkaTemplate;
+    private final RabbitTemplate rabbitTemplate;
+
+    @Value("${notification.dead-letter.poll-timeout-ms:2000}")
+    private long pollTimeoutMs;
+
+    public List<String> getKafkaDeadLetterTopics() {
+        return KAFKA_REDRIVE_TARGETS.keySet().stream().sorted().toList();
+    }
+
+    public RedriveResultDto redriveKafka(String deadLetterTopic, int limit) {
+        String target = KAFKA_REDRIVE_TARGETS.get(deadLetterTopic);
+        if (target == null) {
+            throw new BusinessException("Unknown dead-letter topic: " + deadLetterTopic);
+        }
+        
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.min(limit, 500));
+        
+        int redriven = 0;
+        int skipped = 0;
+        try (Consumer<String, Object> consumer = consumerFactory.createConsumer(REDRIVE_GROUP_ID, null, "-redrive", overrides)) {
+            List<PartitionInfo> partitions = consumer.partitionsFor(deadLetterTopic);
+            if (partitions == null || partitions.isEmpty()) {
+                return new RedriveResultDto(deadLetterTopic, target, 0, 0);
+            }
+            consumer.assign(partitions.stream().map(p -> new TopicPartition(p.topic(), p.partition())).toList());
+            
+            // The redrive group's committed offsets mark what has already been re-driven
+            while (redriven + skipped < limit) {
+                ConsumerRecords<String, Object> records = consumer.poll(Duration.ofMillis(pollTimeoutMs));
+                if (records.isEmpty()) {
+                    break;
+                }
+                
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                List<CompletableFuture<?>> sends = new ArrayList<>();
+                for (ConsumerRecord<String, Object> record : records) {
+                    if (redriven + skipped >= limit) {
+                        break;
+                    }
+                    if (record.value() == null) {
+                        // Still not readable, so sending it back would only dead-letter it again
+                        log.warn("Skipping unreadable dead letter {}-{}@{}", record.topic(), record.partition(), record.offset());
+                        skipped++;
+                    } else {
+                        sends.add(deadLetterKafkaTemplate.send(target, record.key(), record.value()));
+                        redriven++;
+                    }
+                    offsets.put(new TopicPartition(record.topic(), record.partition()), new OffsetAndMetadata(record.offset() + 1));
+                }
+                CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+                consumer.commitSync(offsets);
+            }
+        }
+        
+        log.info("Re-drove {} records from {} to {}, skipped {}", redriven, deadLetterTopic, target, skipped);
+        return new RedriveResultDto(deadLetterTopic, target, redriven, skipped);
+    }
+
+    public RedriveResultDto redriveRabbit(int limit) {
+        int redriven = 0;
+        int skipped = 0;
+        while (redriven + skipped < limit) {
+            Message message = rabbitTemplate.receive(RabbitMQConfig.DEAD_LETTER_QUEUE);
+            if (message == null) {
+                break;
+            }
+            
+            MessageProperties properties = message.getMessageProperties();
+            String queue = properties.getHeader(RabbitMQConfig.ORIGINAL_QUEUE_HEADER);
+            if (queue == null) {
+                log.warn("Dead letter {} has no original queue, leaving it in {}", properties.getMessageId(), RabbitMQConfig.DEAD_LETTER_QUEUE);
+                rabbitTemplate.send(RabbitMQConfig.DEAD_LETTER_EXCHANGE, "", message);
+                skipped++;
+                continue;
+            }
+            
+            // A re-driven message starts over with the full set of retries
+            properties.getHeaders().remove(RabbitMQConfig.RETRY_COUNT_HEADER);
+            properties.getHeaders().remove(RabbitMQConfig.EXCEPTION_MESSAGE_HEADER);
+            rabbitTemplate.send("", queue, message);
+            redriven++;
+        }
+        
+        log.info("Re-drove {} messages from {}, skipped {}", redriven, RabbitMQConfig.DEAD_LETTER_QUEUE, skipped);
+        return new RedriveResultDto(RabbitMQConfig.DEAD_LETTER_QUEUE, null, redriven, skipped);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.notification.service;
+
+import com.example.notification.mail.MailTransport;
+import com.example.notification.mail.RecipientRejectedException;
+import com.example.notification.model.EmailNotification;
+import com.example.notification.repository.EmailNotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Sends outbox emails outside of any transaction. Claims are leases, so emails held by a
+// replica that died are claimed again once the lease expires.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailDispatcher {
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+
+    private final EmailNotificationRepository emailNotificationRepository;
+    private final MailTransport mailTransport;
+    private final ThreadPoolTaskExecutor emailDispatchExecutor;
+
+    private final String workerId = workerId();
+
+    @Value("${notification.email.dispatcher.batch-size:50}")
+    private int batchSize;
+
+    @Value("${notification.email.dispatcher.max-batches-per-run:10}")
+    private int maxBatchesPerRun;
+
+    @Value("${notification.email.dispatcher.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${notification.email.dispatcher.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${notification.email.retry.initial-delay-ms:30000}")
+    private long retryInitialDelayMs;
+
+    @Value("${notification.email.retry.max-delay-ms:3600000}")
+    private long retryMaxDelayMs;
+
+    // Bounded per run, so a large backlog drained at the rate limit cannot hold the scheduler
+    @Scheduled(fixedDelayString = "${notification.email.dispatcher.interval-ms:1000}")
+    public void dispatch() {
+        for (int batches = 0; batches < maxBatchesPerRun; batches++) {
+            List<EmailNotification> batch = claim();
+            CompletableFuture.allOf(batch.stream()
+                    .map(email -> CompletableFuture.runAsync(() -> sendQuietly(email), emailDispatchExecutor))
+                    .toArray(CompletableFuture[]::new))
+                    .join();
+            
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.email.dispatcher.recovery-interval-ms:60000}")
+    public void failAbandoned() {
+        int failed = emailNotificationRepository.failAbandoned(LocalDateTime.now(), maxAttempts);
+        if (failed > 0) {
+            log.warn("Gave up on {} emails whose sending never completed", failed);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.email.retry.interval-ms:10000}")
+    public void requeueDueRetries() {
+        int requeued = 0;
+        List<UUID> batch;
+        do {
+            batch = emailNotificationRepository.requeueDueRetries(LocalDateTime.now(), batchSize);
+            requeued += batch.size();
+        } while (batch.size() == batchSize);
+        
+        if (requeued > 0) {
+            log.info("Requeued {} failed emails for another attempt", requeued);
+        }
+    }
+
+    private List<EmailNotification> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        return emailNotificationRepository.claimBatch(workerId, now, now.plusSeconds(leaseSeconds), maxAttempts, batchSize);
+    }
+
+    private void sendQuietly(EmailNotification email) {
+        try {
+            send(email);
+        } catch (RuntimeException e) {
+            // The lease expires and the email is claimed again
+            log.error("Failed to dispatch email {}: {}", email.getId(), e.getMessage(), e);
+        }
+    }
+
+    private void send(EmailNotification email) {
+        try {
+            mailTransport.send(email.getRecipient(), email.getSubject(), email.getBody());
+        } catch (MailException e) {
+            LocalDateTime nextAttemptAt = e instanceof RecipientRejectedException || email.getAttempts() >= maxAttempts
+                    ? null
+                    : LocalDateTime.now().plus(backoff(email.getAttempts()));
+            log.error("Failed to send email to {} (attempt {}, next attempt {}): {}",
+                    email.getRecipient(), email.getAttempts(), nextAttemptAt != null ? nextAttemptAt : "none", e.getMessage());
+            emailNotificationRepository.markFailed(email.getId(), workerId, truncate(e.getMessage()), nextAttemptAt);
+            return;
+        }
+        
+        if (emailNotificationRepository.markSent(email.getId(), workerId, LocalDateTime.now()) == 0) {
+            log.warn("Lease on email {} expired before it was sent", email.getId());
+        }
+    }
+
+    // Exponential backoff with equal jitter, so emails that failed together do not retry together
+    private Duration backoff(int attempts) {
+        long delayMs = Math.min(retryMaxDelayMs, retryInitialDelayMs << Math.min(attempts - 1, 30));
+        long jitteredMs = delayMs / 2 + ThreadLocalRandom.current().nextLong(delayMs / 2 + 1);
+        return Duration.ofMillis(jitteredMs);
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > MAX_ERROR_MESSAGE_LENGTH
+                ? message.substring(0, MAX_ERROR_MESSAGE_LENGTH)
+                : message;
+    }
+
+    private static String workerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID();
+    }
+}
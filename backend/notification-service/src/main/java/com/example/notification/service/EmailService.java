@@ -9,15 +9,13 @@ import com.example.notification.model.EmailStatus;
 import com.example.notification.repository.EmailNotificationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.MailException;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -28,38 +26,29 @@ public class EmailService {
 
     private final EmailNotificationRepository emailNotificationRepository;
     private final EmailNotificationMapper emailNotificationMapper;
-    private final JavaMailSender mailSender;
+    private final IdempotencyService idempotencyService;
 
     @Transactional
-    public EmailNotificationDto createEmailNotification(SendEmailRequest request) {
+    public Optional<EmailNotificationDto> createEmailNotification(SendEmailRequest request) {
+        if (!idempotencyService.claim(IdempotencyService.EMAIL_SCOPE, request.getIdempotencyKey())) {
+            return Optional.empty();
+        }
+        
         EmailNotification emailNotification = emailNotificationMapper.toEntity(request);
         emailNotification = emailNotificationRepository.save(emailNotification);
-        return emailNotificationMapper.toDto(emailNotification);
+        return Optional.of(emailNotificationMapper.toDto(emailNotification));
     }
 
-    @Async
     @Transactional
-    public void sendEmail(SendEmailRequest request) {
-        EmailNotification emailNotification = emailNotificationMapper.toEntity(request);
-        emailNotification = emailNotificationRepository.save(emailNotification);
-        
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(emailNotification.getRecipient());
-            message.setSubject(emailNotification.getSubject());
-            message.setText(emailNotification.getBody());
-            
-            mailSender.send(message);
-            
-            emailNotification.setStatus(EmailStatus.SENT);
-            emailNotification.setSentAt(LocalDateTime.now());
-        } catch (MailException e) {
-            log.error("Failed to send email to {}: {}", emailNotification.getRecipient(), e.getMessage());
-            emailNotification.setStatus(EmailStatus.FAILED);
-            emailNotification.setErrorMessage(e.getMessage());
+    public boolean sendEmail(SendEmailRequest request) {
+        if (!idempotencyService.claim(IdempotencyService.EMAIL_SCOPE, request.getIdempotencyKey())) {
+            return false;
         }
         
+        // The row is the outbox entry; EmailDispatcher sends it after this transaction commits
+        EmailNotification emailNotification = emailNotificationMapper.toEntity(request);
         emailNotificationRepository.save(emailNotification);
+        return true;
     }
 
     @Transactional(readOnly = true)
@@ -71,11 +60,9 @@ public class EmailService {
     }
 
     @Transactional(readOnly = true)
-    public List<EmailNotificationDto> getFailedEmails() {
-        return emailNotificationRepository.findByStatus(EmailStatus.FAILED)
-                .stream()
-                .map(emailNotificationMapper::toDto)
-                .collect(Collectors.toList());
+    public Page<EmailNotificationDto> getFailedEmails(Pageable pageable) {
+        return emailNotificationRepository.findByStatus(EmailStatus.FAILED, pageable)
+                .map(emailNotificationMapper::toDto);
     }
 
     @Transactional(readOnly = true)
@@ -94,21 +81,10 @@ public class EmailService {
             throw new IllegalStateException("Can only retry failed emails");
         }
         
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(emailNotification.getRecipient());
-            message.setSubject(emailNotification.getSubject());
-            message.setText(emailNotification.getBody());
-            
-            mailSender.send(message);
-            
-            emailNotification.setStatus(EmailStatus.SENT);
-            emailNotification.setSentAt(LocalDateTime.now());
-            emailNotification.setErrorMessage(null);
-        } catch (MailException e) {
-            log.error("Failed to retry sending email to {}: {}", emailNotification.getRecipient(), e.getMessage());
-            emailNotification.setErrorMessage(e.getMessage());
-        }
+        emailNotification.setStatus(EmailStatus.PENDING);
+        emailNotification.setErrorMessage(null);
+        emailNotification.setAttempts(0);
+        emailNotification.setNextAttemptAt(null);
         
         emailNotificationRepository.save(emailNotification);
     }
@@ -0,0 +1,110 @@
+package com.example.notification.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+// Remembers the idempotency keys of ingested requests, so a redelivered request is recognised
+// and skipped. Keys are inserted in the caller's transaction: they disappear with a rollback, and
+// a concurrent delivery of the same key waits on the insert until the first one commits or rolls back.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String NOTIFICATION_SCOPE = "notification";
+    public static final String EMAIL_SCOPE = "email";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${notification.idempotency.retention-days:7}")
+    private long retentionDays;
+
+    @Value("${notification.idempotency.purge-batch-size:10000}")
+    private int purgeBatchSize;
+
+    /**
+     * @return false if the key was already claimed, meaning the request is a duplicate
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean claim(String scope, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return true;
+        }
+        
+        int inserted = jdbcTemplate.update(
+                "INSERT INTO idempotency_keys (scope, idempotency_key) VALUES (?, ?) ON CONFLICT DO NOTHING",
+                scope, idempotencyKey);
+        if (inserted == 0) {
+            log.info("Skipping duplicate {} request with idempotency key {}", scope, idempotencyKey);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Claim the keys of a batch of requests with one statement
+     *
+     * @return the requests that are not duplicates, in their original order
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> List<T> claimAll(String scope, List<T> requests, Function<T, String> idempotencyKey) {
+        String[] keys = requests.stream()
+                .map(idempotencyKey)
+                .filter(Objects::nonNull)
+                .toArray(String[]::new);
+        if (keys.length == 0) {
+            return requests;
+        }
+        
+        // Only the first of several rows with the same key is inserted, which also drops duplicates within the batch
+        Set<String> claimed = new HashSet<>(jdbcTemplate.queryForList(
+                "INSERT INTO idempotency_keys (scope, idempotency_key) SELECT ?, unnest(?::text[]) " +
+                "ON CONFLICT DO NOTHING RETURNING idempotency_key",
+                String.class, scope, keys));
+        
+        List<T> accepted = new ArrayList<>(requests.size());
+        for (T request : requests) {
+            String key = idempotencyKey.apply(request);
+            if (key == null || claimed.remove(key)) {
+                accepted.add(request);
+            }
+        }
+        
+        if (accepted.size() < requests.size()) {
+            log.info("Skipping {} duplicate {} requests", requests.size() - accepted.size(), scope);
+        }
+        return accepted;
+    }
+
+    @Scheduled(cron = "${notification.idempotency.purge-cron:0 0 4 * * *}")
+    public void purgeExpiredKeys() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int purged = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update(
+                    "DELETE FROM idempotency_keys WHERE ctid IN " +
+                    "(SELECT ctid FROM idempotency_keys WHERE created_at < ? LIMIT ?)",
+                    cutoff, purgeBatchSize);
+            purged += batch;
+        } while (batch == purgeBatchSize);
+        
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+}
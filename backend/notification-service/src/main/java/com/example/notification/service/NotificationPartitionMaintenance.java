@@ -0,0 +1,40 @@
+package com.example.notification.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+// Keeps monthly notification partitions created ahead of time and drops the ones past retention
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationPartitionMaintenance {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${notification.partition.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${notification.partition.retention-months:12}")
+    private int retentionMonths;
+
+    @Scheduled(cron = "${notification.partition.maintenance-cron:0 30 3 * * *}")
+    public void maintainPartitions() {
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        
+        Integer created = jdbcTemplate.queryForObject("SELECT create_notification_partitions(?, ?)",
+                Integer.class, Date.valueOf(currentMonth), monthsAhead + 1);
+        Integer dropped = jdbcTemplate.queryForObject("SELECT drop_notification_partitions(?)",
+                Integer.class, Date.valueOf(currentMonth.minusMonths(retentionMonths)));
+        
+        if ((created != null && created > 0) || (dropped != null && dropped > 0)) {
+            log.info("Created {} and dropped {} notification partitions", created, dropped);
+        }
+    }
+}
@@ -2,18 +2,27 @@ package com.example.notification.service;
 
 import com.example.common.exception.ResourceNotFoundException;
 import com.example.notification.dto.CreateNotificationRequest;
+import com.example.notification.dto.NotificationFeedDto;
 import com.example.notification.dto.NotificationDto;
 import com.example.notification.mapper.NotificationMapper;
 import com.example.notification.model.Notification;
+import com.example.notification.push.NotificationPushService;
 import com.example.notification.repository.NotificationRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -23,12 +32,45 @@ public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final NotificationMapper notificationMapper;
+    private final EntityManager entityManager;
+    private final UnreadCounterService unreadCounterService;
+    private final NotificationPushService notificationPushService;
+    private final IdempotencyService idempotencyService;
+
+    @Value("${notification.kafka.batch.insert-batch-size:100}")
+    private int insertBatchSize;
 
     @Transactional
-    public NotificationDto createNotification(CreateNotificationRequest request) {
+    public Optional<NotificationDto> createNotification(CreateNotificationRequest request) {
+        if (!idempotencyService.claim(IdempotencyService.NOTIFICATION_SCOPE, request.getIdempotencyKey())) {
+            return Optional.empty();
+        }
+        
         Notification notification = notificationMapper.toEntity(request);
         notification = notificationRepository.save(notification);
-        return notificationMapper.toDto(notification);
+        unreadCounterService.incrementAfterCommit(notification.getUserId(), 1);
+        
+        NotificationDto notificationDto = notificationMapper.toDto(notification);
+        notificationPushService.publishAfterCommit(List.of(notificationDto));
+        return Optional.of(notificationDto);
+    }
+
+    @Transactional
+    public int createNotifications(List<CreateNotificationRequest> requests) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(insertBatchSize);
+        List<Notification> notifications = idempotencyService.claimAll(IdempotencyService.NOTIFICATION_SCOPE,
+                        requests, CreateNotificationRequest::getIdempotencyKey)
+                .stream()
+                .map(notificationMapper::toEntity)
+                .collect(Collectors.toList());
+        notificationRepository.saveAll(notifications);
+        
+        unreadCounterService.incrementAfterCommit(notifications.stream()
+                .collect(Collectors.groupingBy(Notification::getUserId, Collectors.counting())));
+        notificationPushService.publishAfterCommit(notifications.stream()
+                .map(notificationMapper::toDto)
+                .collect(Collectors.toList()));
+        return notifications.size();
     }
 
     @Transactional(readOnly = true)
@@ -38,16 +80,44 @@ public class NotificationService {
     }
 
     @Transactional(readOnly = true)
-    public List<NotificationDto> getUnreadNotifications(UUID userId) {
-        return notificationRepository.findByUserIdAndReadOrderByCreatedAtDesc(userId, false)
+    public NotificationFeedDto getNotificationFeed(UUID userId, String cursor, int limit, boolean unreadOnly) {
+        // Fetch one extra row to know whether there is a next page
+        List<Notification> notifications;
+        if (cursor == null || cursor.isBlank()) {
+            notifications = notificationRepository.findFeedFirstPage(userId, unreadOnly, limit + 1);
+        } else {
+            FeedCursor position = FeedCursor.decode(cursor);
+            notifications = notificationRepository.findFeedPageAfter(userId, unreadOnly,
+                    position.createdAt(), position.id(), limit + 1);
+        }
+        
+        String nextCursor = null;
+        if (notifications.size() > limit) {
+            notifications = notifications.subList(0, limit);
+            Notification last = notifications.get(limit - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        
+        return NotificationFeedDto.builder()
+                .items(notifications.stream().map(notificationMapper::toDto).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public List<NotificationDto> getUnreadNotifications(UUID userId, int limit) {
+        return notificationRepository.findByUserIdAndReadOrderByCreatedAtDesc(userId, false, PageRequest.of(0, limit))
                 .stream()
                 .map(notificationMapper::toDto)
                 .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
     public long countUnreadNotifications(UUID userId) {
-        return notificationRepository.countByUserIdAndRead(userId, false);
+        return unreadCounterService.getUnreadCount(userId);
+    }
+
+    public Map<UUID, Long> countUnreadNotifications(Collection<UUID> userIds) {
+        return unreadCounterService.getUnreadCounts(userIds);
     }
 
     @Transactional(readOnly = true)
@@ -62,31 +132,44 @@ public class NotificationService {
         Notification notification = notificationRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Notification not found with id: " + id));
         
-        notification.setRead(true);
-        notification.setReadAt(LocalDateTime.now());
-        notification = notificationRepository.save(notification);
+        if (!notification.isRead()) {
+            notification.setRead(true);
+            notification.setReadAt(LocalDateTime.now());
+            notification = notificationRepository.save(notification);
+            unreadCounterService.incrementAfterCommit(notification.getUserId(), -1);
+        }
         
         return notificationMapper.toDto(notification);
     }
 
     @Transactional
     public void markAllAsRead(UUID userId) {
-        List<Notification> unreadNotifications = notificationRepository.findByUserIdAndReadOrderByCreatedAtDesc(userId, false);
-        
-        LocalDateTime now = LocalDateTime.now();
-        unreadNotifications.forEach(notification -> {
-            notification.setRead(true);
-            notification.setReadAt(now);
-        });
-        
-        notificationRepository.saveAll(unreadNotifications);
+        notificationRepository.markAllAsRead(userId, LocalDateTime.now());
+        unreadCounterService.resetAfterCommit(userId);
+    }
+
+    @Transactional
+    public int markAsRead(UUID userId, Collection<UUID> ids) {
+        int updated = notificationRepository.markAsRead(userId, ids, LocalDateTime.now());
+        unreadCounterService.incrementAfterCommit(userId, -updated);
+        return updated;
+    }
+
+    @Transactional
+    public int deleteNotifications(UUID userId, Collection<UUID> ids) {
+        List<Boolean> deleted = notificationRepository.deleteByUserIdAndIds(userId, ids);
+        long unread = deleted.stream().filter(read -> !read).count();
+        unreadCounterService.incrementAfterCommit(userId, -unread);
+        return deleted.size();
     }
 
     @Transactional
     public void deleteNotification(UUID id) {
-        if (!notificationRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Notification not found with id: " + id);
+        Notification notification = notificationRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Notification not found with id: " + id));
+        notificationRepository.delete(notification);
+        if (!notification.isRead()) {
+            unreadCounterService.incrementAfterCommit(notification.getUserId(), -1);
         }
-        notificationRepository.deleteById(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package com.example.notification.service;
+
+import com.example.notification.repository.NotificationRepository;
+import com.example.notification.repository.UnreadCountView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Per-user unread counts cached in Redis. Writes adjust a counter after their transaction
+// commits, and only if it is cached; reads load missing counters from Postgres and cache
+// them unless a write raced the load. A periodic job overwrites cached counters with fresh
+// counts to correct any drift, using the same load markers so a write committing during the
+// count is not overwritten, and keeping their TTL so idle users still expire.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UnreadCounterService {
+
+    private static final String KEY_PREFIX = "notification:unread:";
+    private static final String LOAD_MARKER_PREFIX = "notification:unread-loading:";
+
+    private static final RedisScript<Long> ADJUST_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/unread-adjust.lua"), Long.class);
+    private static final RedisScript<Long> LOAD_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/unread-load.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final NotificationRepository notificationRepository;
+
+    @Value("${notification.unread.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${notification.unread.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    @Value("${notification.unread.load-marker-ttl-seconds:30}")
+    private long loadMarkerTtlSeconds;
+
+    public long getUnreadCount(UUID userId) {
+        return getUnreadCounts(List.of(userId)).get(userId);
+    }
+
+    public Map<UUID, Long> getUnreadCounts(Collection<UUID> userIds) {
+        List<UUID> ids = new ArrayList<>(userIds);
+        List<String> values = redisTemplate.opsForValue().multiGet(ids.stream().map(this::key).toList());
+        
+        Map<UUID, Long> counts = new LinkedHashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String value = values != null ? values.get(i) : null;
+            if (value != null) {
+                counts.put(ids.get(i), Long.parseLong(value));
+            } else {
+                counts.put(ids.get(i), 0L);
+                missing.add(ids.get(i));
+            }
+        }
+        
+        if (!missing.isEmpty()) {
+            // Mark the load first, so a write committing while the database is counted is not lost
+            String token = UUID.randomUUID().toString();
+            markLoading(missing, token);
+            Map<UUID, Long> loaded = countFromDatabase(missing);
+            counts.putAll(loaded);
+            cacheLoaded(missing, loaded, token);
+        }
+        return counts;
+    }
+
+    public void incrementAfterCommit(UUID userId, long delta) {
+        afterCommit(() -> adjust(userId, delta));
+    }
+
+    public void incrementAfterCommit(Map<UUID, Long> deltas) {
+        afterCommit(() -> deltas.forEach(this::adjust));
+    }
+
+    public void resetAfterCommit(UUID userId) {
+        afterCommit(() -> {
+            // Drop the load marker first, so a count running concurrently cannot overwrite the reset
+            redisTemplate.delete(loadMarkerKey(userId));
+            redisTemplate.opsForValue().set(key(userId), "0", Duration.ofSeconds(ttlSeconds));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${notification.unread.reconcile-interval-ms:900000}")
+    public void reconcile() {
+        long reconciled = 0;
+        List<UUID> batch = new ArrayList<>(reconcileBatchSize);
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(reconcileBatchSize).build();
+        
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                batch.add(UUID.fromString(keys.next().substring(KEY_PREFIX.length())));
+                if (batch.size() == reconcileBatchSize || !keys.hasNext()) {
+                    refresh(batch);
+                    reconciled += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        
+        log.debug("Reconciled {} unread counters", reconciled);
+    }
+
+    private Map<UUID, Long> countFromDatabase(Collection<UUID> userIds) {
+        Map<UUID, Long> counts = new HashMap<>();
+        userIds.forEach(userId -> counts.put(userId, 0L));
+        for (UnreadCountView view : notificationRepository.countUnreadByUserIds(userIds)) {
+            counts.put(view.getUserId(), view.getUnread());
+        }
+        return counts;
+    }
+
+    private void adjust(UUID userId, long delta) {
+        redisTemplate.execute(ADJUST_SCRIPT, List.of(key(userId), loadMarkerKey(userId)), Long.toString(delta));
+    }
+
+    private void markLoading(List<UUID> userIds, String token) {
+        byte[] value = token.getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            userIds.forEach(userId -> connection.stringCommands().setEx(
+                    loadMarkerKey(userId).getBytes(StandardCharsets.UTF_8), loadMarkerTtlSeconds, value));
+            return null;
+        });
+    }
+
+    private void cacheLoaded(List<UUID> userIds, Map<UUID, Long> counts, String token) {
+        writeCounted(userIds, counts, token, ttlSeconds);
+    }
+
+    private void refresh(List<UUID> userIds) {
+        // Only counters still cached and not written to while counting are overwritten, and they keep their TTL
+        String token = UUID.randomUUID().toString();
+        markLoading(userIds, token);
+        writeCounted(userIds, countFromDatabase(userIds), token, -1);
+    }
+
+    private void writeCounted(List<UUID> userIds, Map<UUID, Long> counts, String token, long ttl) {
+        List<String> keys = new ArrayList<>(userIds.size() * 2);
+        List<String> args = new ArrayList<>(userIds.size() + 2);
+        args.add(token);
+        args.add(Long.toString(ttl));
+        for (UUID userId : userIds) {
+            keys.add(key(userId));
+            keys.add(loadMarkerKey(userId));
+            args.add(Long.toString(counts.get(userId)));
+        }
+        redisTemplate.execute(LOAD_SCRIPT, keys, args.toArray());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    // The counter is corrected by the next reconciliation
+                    log.warn("Failed to update unread counter: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    private String key(UUID userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private String loadMarkerKey(UUID userId) {
+        return LOAD_MARKER_PREFIX + userId;
+    }
+}
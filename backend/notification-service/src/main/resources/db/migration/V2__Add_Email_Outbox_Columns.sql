@@ -0,0 +1,8 @@
+-- Track dispatch attempts and the lease of the worker sending an email
+ALTER TABLE email_notifications ADD COLUMN attempts INT NOT NULL DEFAULT 0;
+ALTER TABLE email_notifications ADD COLUMN locked_by VARCHAR(100);
+ALTER TABLE email_notifications ADD COLUMN locked_until TIMESTAMP;
+
+-- Dispatchers claim the oldest pending emails and recover expired leases
+CREATE INDEX idx_email_notifications_pending ON email_notifications(created_at) WHERE status = 'PENDING';
+CREATE INDEX idx_email_notifications_sending ON email_notifications(locked_until) WHERE status = 'SENDING';
@@ -0,0 +1,4 @@
+-- When a failed email is due for its next automatic attempt; NULL once retries are exhausted
+ALTER TABLE email_notifications ADD COLUMN next_attempt_at TIMESTAMP;
+
+CREATE INDEX idx_email_notifications_retry ON email_notifications(next_attempt_at, id) WHERE status = 'FAILED';
@@ -0,0 +1,85 @@
+-- Partition notifications by month of creation, so old months can be dropped whole
+-- and recent-feed queries only touch recent partitions
+
+CREATE OR REPLACE FUNCTION create_notification_partitions(start_month DATE, months INT) RETURNS INT AS $$
+DECLARE
+    created INT := 0;
+    month_start DATE;
+    partition_name TEXT;
+BEGIN
+    FOR i IN 0..months - 1 LOOP
+        month_start := (date_trunc('month', start_month) + make_interval(months => i))::date;
+        partition_name := 'notifications_' || to_char(month_start, 'YYYY_MM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+                    partition_name, month_start, (month_start + INTERVAL '1 month')::date);
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Drops the monthly partitions that end on or before the cutoff
+CREATE OR REPLACE FUNCTION drop_notification_partitions(cutoff DATE) RETURNS INT AS $$
+DECLARE
+    dropped INT := 0;
+    p RECORD;
+BEGIN
+    FOR p IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'notifications'::regclass
+          AND c.relname ~ '^notifications_[0-9]{4}_[0-9]{2}$'
+    LOOP
+        IF (to_date(substring(p.relname FROM 15), 'YYYY_MM') + INTERVAL '1 month')::date <= cutoff THEN
+            EXECUTE format('DROP TABLE %I', p.relname);
+            dropped := dropped + 1;
+        END IF;
+    END LOOP;
+    RETURN dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+ALTER TABLE notifications RENAME TO notifications_legacy;
+DROP INDEX idx_notifications_user_id;
+DROP INDEX idx_notifications_user_id_read;
+
+-- The partition key has to be part of the primary key
+CREATE TABLE notifications (
+    id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    content VARCHAR(1000) NOT NULL,
+    read BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP NOT NULL,
+    read_at TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Catches rows outside the created partitions; the maintenance job keeps it empty
+CREATE TABLE notifications_default PARTITION OF notifications DEFAULT;
+
+-- Serves the keyset feed and the unread list
+CREATE INDEX idx_notifications_user_feed ON notifications(user_id, created_at DESC, id DESC);
+CREATE INDEX idx_notifications_user_unread ON notifications(user_id, created_at DESC) WHERE read = false;
+
+DO $$
+DECLARE
+    first_month DATE := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM notifications_legacy), now()))::date;
+    current_month DATE := date_trunc('month', now())::date;
+BEGIN
+    -- Every month with existing rows, the current month and the next three
+    PERFORM create_notification_partitions(first_month,
+            ((EXTRACT(YEAR FROM current_month) - EXTRACT(YEAR FROM first_month)) * 12
+                + EXTRACT(MONTH FROM current_month) - EXTRACT(MONTH FROM first_month))::int + 4);
+END;
+$$;
+
+INSERT INTO notifications (id, user_id, type, title, content, read, created_at, read_at)
+SELECT id, user_id, type, title, content, read, created_at, read_at
+FROM notifications_legacy;
+
+DROP TABLE notifications_legacy;
@@ -0,0 +1,33 @@
+-- Rows that land in notifications_default, because their month had no partition yet, would
+-- make CREATE TABLE ... PARTITION OF fail for that month. New partitions are therefore built
+-- standalone, filled with the month's rows from the default partition and then attached.
+
+CREATE OR REPLACE FUNCTION create_notification_partitions(start_month DATE, months INT) RETURNS INT AS $$
+DECLARE
+    created INT := 0;
+    moved INT;
+    month_start DATE;
+    month_end DATE;
+    partition_name TEXT;
+BEGIN
+    FOR i IN 0..months - 1 LOOP
+        month_start := (date_trunc('month', start_month) + make_interval(months => i))::date;
+        month_end := (month_start + INTERVAL '1 month')::date;
+        partition_name := 'notifications_' || to_char(month_start, 'YYYY_MM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I (LIKE notifications INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+            EXECUTE format('WITH moved AS (DELETE FROM notifications_default WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                           'INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+            GET DIAGNOSTICS moved = ROW_COUNT;
+            IF moved > 0 THEN
+                RAISE NOTICE 'Moved % rows from notifications_default into %', moved, partition_name;
+            END IF;
+            -- Attaching creates the partition's primary key and indexes from the parent's
+            EXECUTE format('ALTER TABLE notifications ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                    partition_name, month_start, month_end);
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
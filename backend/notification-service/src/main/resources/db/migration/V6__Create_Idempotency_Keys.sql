@@ -0,0 +1,12 @@
+-- Idempotency keys of ingested requests, claimed in the same transaction as the rows they
+-- create, so a redelivered request is recognised exactly when its first delivery committed.
+-- Not partitioned, so the key stays unique across months.
+CREATE TABLE idempotency_keys (
+    scope VARCHAR(20) NOT NULL,
+    idempotency_key VARCHAR(100) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (scope, idempotency_key)
+);
+
+-- Serves the retention purge
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys(created_at);
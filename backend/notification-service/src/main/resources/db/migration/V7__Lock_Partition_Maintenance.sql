@@ -0,0 +1,56 @@
+-- Every replica runs partition maintenance at the same time. Both functions take the same
+-- transaction-scoped advisory lock first, so replicas run them one after another and the
+-- later ones find the partitions already created or dropped instead of failing.
+
+CREATE OR REPLACE FUNCTION create_notification_partitions(start_month DATE, months INT) RETURNS INT AS $$
+DECLARE
+    created INT := 0;
+    moved INT;
+    month_start DATE;
+    month_end DATE;
+    partition_name TEXT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('notification_partitions'));
+    FOR i IN 0..months - 1 LOOP
+        month_start := (date_trunc('month', start_month) + make_interval(months => i))::date;
+        month_end := (month_start + INTERVAL '1 month')::date;
+        partition_name := 'notifications_' || to_char(month_start, 'YYYY_MM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I (LIKE notifications INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+            EXECUTE format('WITH moved AS (DELETE FROM notifications_default WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                           'INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+            GET DIAGNOSTICS moved = ROW_COUNT;
+            IF moved > 0 THEN
+                RAISE NOTICE 'Moved % rows from notifications_default into %', moved, partition_name;
+            END IF;
+            -- Attaching creates the partition's primary key and indexes from the parent's
+            EXECUTE format('ALTER TABLE notifications ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                    partition_name, month_start, month_end);
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION drop_notification_partitions(cutoff DATE) RETURNS INT AS $$
+DECLARE
+    dropped INT := 0;
+    p RECORD;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('notification_partitions'));
+    FOR p IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'notifications'::regclass
+          AND c.relname ~ '^notifications_[0-9]{4}_[0-9]{2}$'
+    LOOP
+        IF (to_date(substring(p.relname FROM 15), 'YYYY_MM') + INTERVAL '1 month')::date <= cutoff THEN
+            EXECUTE format('DROP TABLE %I', p.relname);
+            dropped := dropped + 1;
+        END IF;
+    END LOOP;
+    RETURN dropped;
+END;
+$$ LANGUAGE plpgsql;
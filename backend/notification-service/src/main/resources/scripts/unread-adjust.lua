@@ -0,0 +1,16 @@
+-- Adjust a cached unread counter, never going below zero.
+-- A counter that is not cached is left alone; it is loaded from the database on the next read.
+-- Removing its load marker stops a load or reconcile that is counting concurrently from
+-- writing a count that may predate this write.
+-- KEYS[1] counter key, KEYS[2] load marker key
+-- ARGV[1] delta
+redis.call('DEL', KEYS[2])
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return nil
+end
+local value = redis.call('INCRBY', KEYS[1], ARGV[1])
+if value < 0 then
+    redis.call('SET', KEYS[1], 0, 'KEEPTTL')
+    value = 0
+end
+return value
@@ -0,0 +1,26 @@
+-- Cache unread counters counted from the database, unless a write touched them during the count.
+-- Each load marker is set before counting and removed by unread-adjust.lua on every write, so a
+-- changed marker means the count may be stale.
+-- KEYS[2i-1] counter key, KEYS[2i] load marker key
+-- ARGV[1] load token, ARGV[2] TTL in seconds for counters that are not cached, or -1 to only
+-- overwrite counters that are still cached and keep their TTL, ARGV[i+2] counted value
+-- Returns the number of counters written
+local written = 0
+local ttl = tonumber(ARGV[2])
+for i = 1, #KEYS / 2 do
+    local counter = KEYS[2 * i - 1]
+    local marker = KEYS[2 * i]
+    if redis.call('GET', marker) == ARGV[1] then
+        redis.call('DEL', marker)
+        local result
+        if ttl >= 0 then
+            result = redis.call('SET', counter, ARGV[i + 2], 'EX', ttl, 'NX')
+        else
+            result = redis.call('SET', counter, ARGV[i + 2], 'XX', 'KEEPTTL')
+        end
+        if result then
+            written = written + 1
+        end
+    end
+end
+return written